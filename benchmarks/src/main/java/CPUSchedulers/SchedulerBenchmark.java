@@ -0,0 +1,150 @@
+package CPUSchedulers;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// ================================
+// Scheduler benchmarks
+// ================================
+
+// Throughput of a full run of each engine over generated workloads, from a handful of
+// processes up to a million. Each engine has its own state so it is only swept over
+// the parameters it reads: the context switch for SJF, RR and Priority, the quantum
+// for RR and AG (as every process's initial quantum) and the aging interval for
+// Priority. Every shape runs both the rewritten engine and the original tick-by-tick
+// one (impl = reference), which is only run up to REFERENCE_MAX_PROCESSES processes as
+// it takes time quadratic in the process count. Run with -prof gc to add the
+// allocation rate per operation.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class SchedulerBenchmark {
+
+    static final int REFERENCE_MAX_PROCESSES = 10_000;
+
+    // Shape of the generated workload. The table is built once per trial and shared
+    // by every invocation, each run keeps its own state.
+    @State(Scope.Benchmark)
+    public static class Shape {
+
+        @Param({"10", "1000", "10000", "100000", "1000000"})
+        public int processes;
+
+        @Param({"optimized", "reference"})
+        public String impl;
+
+        // Burst time distributions (see IntDistribution), all with a mean of about 10
+        @Param({"uniform:1:19", "exp:10", "pareto:1.5:4", "bimodal:3:70:0.1"})
+        public String bursts;
+
+        Workload workload;
+
+        // Poisson arrivals at about 90% CPU load, so queues stay bounded as the
+        // process count grows. Seeded, every trial sees the same workload.
+        @Setup(Level.Trial)
+        public void setUp() {
+            if (reference() && processes > REFERENCE_MAX_PROCESSES) {
+                throw new IllegalStateException("reference engines run up to " + REFERENCE_MAX_PROCESSES
+                        + " processes, pass -p impl=optimized or -p processes=10,1000,10000");
+            }
+
+            WorkloadSpec spec = new WorkloadSpec(processes);
+            spec.seed = 42;
+            spec.bursts = bursts;
+            if (initialQuantum() > 0) spec.quantum = "const:" + initialQuantum();
+
+            ProcessTable table = new ProcessTable(processes);
+            WorkloadGenerator generator = spec.generator();
+            for (Process p = generator.next(); p != null; p = generator.next()) {
+                table.add(p);
+            }
+            workload = new Workload(table, config());
+        }
+
+        boolean reference() {
+            return impl.equals("reference");
+        }
+
+        SchedulerConfig config() {
+            return new SchedulerConfig(0, 0, 0);
+        }
+
+        // Initial AG quantum of every process, 0 keeps the generator's default
+        int initialQuantum() {
+            return 0;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class SJFWorkload extends Shape {
+
+        @Param({"0", "1"})
+        public int contextSwitch;
+
+        SchedulerConfig config() {
+            return new SchedulerConfig(contextSwitch, 0, 0);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class RRWorkload extends Shape {
+
+        @Param({"0", "1"})
+        public int contextSwitch;
+
+        @Param({"2", "8"})
+        public int quantum;
+
+        SchedulerConfig config() {
+            return new SchedulerConfig(contextSwitch, quantum, 0);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class PriorityWorkload extends Shape {
+
+        @Param({"0", "1"})
+        public int contextSwitch;
+
+        // 0 turns aging off
+        @Param({"0", "5"})
+        public int agingInterval;
+
+        SchedulerConfig config() {
+            return new SchedulerConfig(contextSwitch, 0, agingInterval);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class AGWorkload extends Shape {
+
+        @Param({"2", "8"})
+        public int quantum;
+
+        int initialQuantum() {
+            return quantum;
+        }
+    }
+
+    @Benchmark
+    public SchedulerResult sjf(SJFWorkload w) {
+        return (w.reference() ? new ReferenceSJF() : new SJFScheduler()).run(w.workload);
+    }
+
+    @Benchmark
+    public SchedulerResult rr(RRWorkload w) {
+        return (w.reference() ? new ReferenceRR() : new RRScheduler()).run(w.workload);
+    }
+
+    @Benchmark
+    public SchedulerResult priority(PriorityWorkload w) {
+        return (w.reference() ? new ReferencePriority() : new PriorityScheduler()).run(w.workload);
+    }
+
+    @Benchmark
+    public SchedulerResult ag(AGWorkload w) {
+        return (w.reference() ? new ReferenceAG() : new AGScheduler()).run(w.workload);
+    }
+}
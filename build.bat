@@ -1,7 +1,7 @@
 @echo off
 setlocal
 set "GSON=src\gson-2.10.1.jar"
-set "SRC=src\Test.java"
+set "SRC=src\CPUSchedulers\*.java"
 set "OUT=out"
 if not exist "%OUT%" mkdir "%OUT%"
 echo Compiling...
@@ -0,0 +1,276 @@
+package CPUSchedulers;
+
+import java.util.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+// ================================
+// Binary workload format
+// ================================
+//
+// Fixed-width layout, big-endian:
+//
+//   header (40 bytes)
+//     int  magic            'CPUW'
+//     int  version
+//     int  contextSwitch
+//     int  rrQuantum
+//     int  agingInterval
+//     int  flags            FLAG_SORTED if arrivals never decrease
+//     int  processCount
+//     int  nameCount
+//     long nameTableOffset
+//   records (20 bytes each, in input order)
+//     int  nameId, arrival, burst, priority, quantum
+//   name table (nameCount entries, in id order)
+//     int  length, then that many UTF-8 bytes
+
+// Writes the binary format one process at a time, names are interned as they appear
+class BinaryWorkloadWriter implements Closeable {
+
+    static final int MAGIC = 0x43505557;
+    static final int VERSION = 1;
+    static final int FLAG_SORTED = 1;
+    static final int HEADER_SIZE = 40;
+    static final int RECORD_SIZE = 20;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+    private final SchedulerConfig config;
+
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    private int count;
+    private boolean sorted = true;
+    private int lastArrival = Integer.MIN_VALUE;
+
+    BinaryWorkloadWriter(Path path, SchedulerConfig config) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.config = config;
+
+        // The header is written last, once the counts are known
+        channel.position(HEADER_SIZE);
+    }
+
+    void write(Process p) throws IOException {
+        Integer id = nameIds.get(p.name);
+        if (id == null) {
+            id = names.size();
+            nameIds.put(p.name, id);
+            names.add(p.name);
+        }
+
+        if (p.arrivalTime < lastArrival) sorted = false;
+        lastArrival = p.arrivalTime;
+
+        ensureRoom(RECORD_SIZE);
+        buffer.putInt(id)
+                .putInt(p.arrivalTime)
+                .putInt(p.burstTime)
+                .putInt(p.priority)
+                .putInt(p.quantum);
+        count++;
+    }
+
+    public void close() throws IOException {
+        try {
+            long nameTableOffset = HEADER_SIZE + (long) count * RECORD_SIZE;
+
+            for (String name : names) {
+                byte[] bytes = name == null ? new byte[0] : name.getBytes(StandardCharsets.UTF_8);
+                ensureRoom(4);
+                buffer.putInt(bytes.length);
+                for (int off = 0; off < bytes.length; ) {
+                    ensureRoom(1);
+                    int n = Math.min(buffer.remaining(), bytes.length - off);
+                    buffer.put(bytes, off, n);
+                    off += n;
+                }
+            }
+            flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(config.contextSwitch)
+                    .putInt(config.rrQuantum)
+                    .putInt(config.agingInterval)
+                    .putInt(sorted ? FLAG_SORTED : 0)
+                    .putInt(count)
+                    .putInt(names.size())
+                    .putLong(nameTableOffset);
+            header.flip();
+            channel.write(header, 0);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void ensureRoom(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) flush();
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    // Convert a JSON test case (either schema) without materializing it
+    static void convert(Path json, Path out) throws IOException {
+        try (WorkloadReader reader = new WorkloadReader(json);
+             BinaryWorkloadWriter writer = new BinaryWorkloadWriter(out, reader.config)) {
+            for (Process p = reader.next(); p != null; p = reader.next()) {
+                writer.write(p);
+            }
+        }
+    }
+}
+
+// Reads the binary format through memory mappings; the name table is decoded once, when
+// the file is opened. Single fields are read in place from the mapped pages. Engines
+// need the workload as ProcessTable columns, so toWorkload bulk-copies the records into
+// them, a block of ints at a time, and adopts the file's name ids as they are. Streaming
+// through next() hands out one Process per record, as every ProcessSource does.
+class BinaryWorkload implements ProcessSource, Closeable {
+
+    // Records de-interleaved per bulk read
+    private static final int BLOCK_RECORDS = 4096;
+
+    // Records per mapping, so that each mapping stays below the 2 GB limit
+    private static final int RECORDS_PER_CHUNK = Integer.MAX_VALUE / BinaryWorkloadWriter.RECORD_SIZE;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final String[] names;
+
+    final SchedulerConfig config;
+    final int processCount;
+    final boolean sorted;
+
+    private int cursor;
+
+    BinaryWorkload(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, BinaryWorkloadWriter.HEADER_SIZE);
+            if (header.getInt() != BinaryWorkloadWriter.MAGIC)
+                throw new IOException(path + " is not a binary workload file");
+            int version = header.getInt();
+            if (version != BinaryWorkloadWriter.VERSION)
+                throw new IOException(path + " has unsupported version " + version);
+
+            config = new SchedulerConfig(header.getInt(), header.getInt(), header.getInt());
+            sorted = (header.getInt() & BinaryWorkloadWriter.FLAG_SORTED) != 0;
+            processCount = header.getInt();
+            int nameCount = header.getInt();
+            long nameTableOffset = header.getLong();
+
+            int chunkCount = (processCount + RECORDS_PER_CHUNK - 1) / RECORDS_PER_CHUNK;
+            chunks = new MappedByteBuffer[chunkCount];
+            for (int c = 0; c < chunkCount; c++) {
+                long first = (long) c * RECORDS_PER_CHUNK;
+                long records = Math.min(RECORDS_PER_CHUNK, processCount - first);
+                chunks[c] = channel.map(FileChannel.MapMode.READ_ONLY,
+                        BinaryWorkloadWriter.HEADER_SIZE + first * BinaryWorkloadWriter.RECORD_SIZE,
+                        records * BinaryWorkloadWriter.RECORD_SIZE);
+            }
+
+            ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY,
+                    nameTableOffset, channel.size() - nameTableOffset);
+            names = new String[nameCount];
+            for (int i = 0; i < nameCount; i++) {
+                byte[] bytes = new byte[table.getInt()];
+                table.get(bytes);
+                names[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    static BinaryWorkload open(String path) throws IOException {
+        return new BinaryWorkload(Paths.get(path));
+    }
+
+    static boolean isBinary(String path) {
+        return path.endsWith(".bin");
+    }
+
+    int nameId(int i) {
+        return field(i, 0);
+    }
+
+    String name(int i) {
+        return names[nameId(i)];
+    }
+
+    int arrival(int i) {
+        return field(i, 4);
+    }
+
+    int burst(int i) {
+        return field(i, 8);
+    }
+
+    int priority(int i) {
+        return field(i, 12);
+    }
+
+    int quantum(int i) {
+        return field(i, 16);
+    }
+
+    private int field(int i, int offset) {
+        return chunks[i / RECORDS_PER_CHUNK]
+                .getInt((i % RECORDS_PER_CHUNK) * BinaryWorkloadWriter.RECORD_SIZE + offset);
+    }
+
+    public Process next() {
+        if (cursor == processCount)
+            return null;
+
+        int i = cursor++;
+        return new Process(name(i), arrival(i), burst(i), priority(i), quantum(i));
+    }
+
+    // The whole workload as a table, for engines fed in arbitrary order
+    Workload toWorkload() {
+        int[] nameId = new int[processCount];
+        int[] arrival = new int[processCount];
+        int[] burst = new int[processCount];
+        int[] priority = new int[processCount];
+        int[] quantum = new int[processCount];
+
+        int fields = BinaryWorkloadWriter.RECORD_SIZE / 4;
+        int[] block = new int[BLOCK_RECORDS * fields];
+        int row = 0;
+        for (MappedByteBuffer chunk : chunks) {
+            IntBuffer records = chunk.duplicate().order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+            while (records.hasRemaining()) {
+                int n = Math.min(BLOCK_RECORDS, records.remaining() / fields);
+                records.get(block, 0, n * fields);
+                for (int r = 0, f = 0; r < n; r++, f += fields, row++) {
+                    nameId[row] = block[f];
+                    arrival[row] = block[f + 1];
+                    burst[row] = block[f + 2];
+                    priority[row] = block[f + 3];
+                    quantum[row] = block[f + 4];
+                }
+            }
+        }
+
+        return new Workload(ProcessTable.ofColumns(names, nameId, arrival, burst, priority, quantum), config);
+    }
+
+    public void close() throws IOException {
+        channel.close();
+    }
+}
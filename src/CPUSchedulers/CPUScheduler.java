@@ -0,0 +1,2389 @@
+package CPUSchedulers;
+
+import java.util.*;
+import java.util.function.IntBinaryOperator;
+import java.io.*;
+import java.nio.file.*;
+import com.google.gson.Gson;
+import com.google.gson.annotations.SerializedName;
+
+class Process {
+    String name;
+
+    @SerializedName("arrival")
+    int arrivalTime;
+
+    @SerializedName("burst")
+    int burstTime;
+
+    int priority;
+
+    // Initial quantum, only used by the AG scheduler
+    int quantum;
+
+    public Process(String name, int arrivalTime, int burstTime, int priority) {
+        this.name = name;
+        this.arrivalTime = arrivalTime;
+        this.burstTime = burstTime;
+        this.priority = priority;
+    }
+
+    public Process(String name, int arrivalTime, int burstTime, int priority, int quantum) {
+        this(name, arrivalTime, burstTime, priority);
+        this.quantum = quantum;
+    }
+}
+
+class ProcessResult {
+    String name;
+    int waitingTime;
+    int turnaroundTime;
+
+    // AG scheduler only
+    List<Integer> quantumHistory;
+
+    ProcessResult(String name, int WT, int TT) {
+        this.name = name;
+        this.waitingTime = WT;
+        this.turnaroundTime = TT;
+    }
+}
+
+// FIFO of ints backed by a ring buffer that doubles when full
+class IntRingQueue {
+    private int[] items;
+    private int head;
+    private int size;
+
+    IntRingQueue(int capacity) {
+        items = new int[Math.max(1, capacity)];
+    }
+
+    void add(int value) {
+        if (size == items.length) grow();
+
+        int tail = head + size;
+        if (tail >= items.length) tail -= items.length;
+        items[tail] = value;
+        size++;
+    }
+
+    int poll() {
+        int value = items[head];
+        head++;
+        if (head == items.length) head = 0;
+        size--;
+        return value;
+    }
+
+    // Element at the given offset from the head, without removing it
+    int get(int offset) {
+        int i = head + offset;
+        if (i >= items.length) i -= items.length;
+        return items[i];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void grow() {
+        int[] bigger = new int[items.length * 2];
+        for (int i = 0; i < size; i++) bigger[i] = get(i);
+        items = bigger;
+        head = 0;
+    }
+}
+
+// Growable list of ints
+class IntList {
+    private int[] items;
+    private int size;
+
+    IntList(int capacity) {
+        items = new int[Math.max(1, capacity)];
+    }
+
+    void add(int value) {
+        if (size == items.length) items = Arrays.copyOf(items, size * 2);
+        items[size++] = value;
+    }
+
+    int get(int index) {
+        return items[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    // Sort the elements in ascending order
+    void sort() {
+        Arrays.sort(items, 0, size);
+    }
+
+    void save(SnapshotWriter out) {
+        out.putInts(items, size);
+    }
+
+    // Replace the elements with the saved ones
+    void restore(SnapshotReader in) {
+        items = in.getInts();
+        size = items.length;
+        if (size == 0) items = new int[1];
+    }
+}
+
+// Binary min-heap of process rows ordered by a comparator over rows. The position
+// of every queued row is tracked, so a row can be removed or re-ordered in place
+// after its key changes. A row is queued at most once.
+class IntHeap {
+    private final IntBinaryOperator order;
+
+    private int[] heap = new int[16];
+    private int size;
+
+    // Heap index + 1 of each row, 0 when not queued
+    private int[] position = new int[16];
+
+    IntHeap(IntBinaryOperator order) {
+        this.order = order;
+    }
+
+    void add(int row) {
+        if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+        if (row >= position.length) position = Arrays.copyOf(position, Math.max(row + 1, position.length * 2));
+
+        heap[size] = row;
+        position[row] = size + 1;
+        size++;
+        siftUp(size - 1);
+    }
+
+    int peek() {
+        return heap[0];
+    }
+
+    // Queued rows in ascending order
+    int[] rows() {
+        int[] rows = Arrays.copyOf(heap, size);
+        Arrays.sort(rows);
+        return rows;
+    }
+
+    int poll() {
+        int row = heap[0];
+        removeAt(0);
+        return row;
+    }
+
+    boolean contains(int row) {
+        return row < position.length && position[row] != 0;
+    }
+
+    void remove(int row) {
+        removeAt(position[row] - 1);
+    }
+
+    // Restore the heap order after the key of a queued row changed
+    void update(int row) {
+        int i = position[row] - 1;
+        siftUp(i);
+        siftDown(position[row] - 1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void removeAt(int i) {
+        position[heap[i]] = 0;
+        size--;
+        if (i == size) return;
+
+        int moved = heap[size];
+        place(moved, i);
+        siftUp(i);
+        siftDown(position[moved] - 1);
+    }
+
+    private void siftUp(int i) {
+        int row = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (order.applyAsInt(row, heap[parent]) >= 0) break;
+            place(heap[parent], i);
+            i = parent;
+        }
+        place(row, i);
+    }
+
+    private void siftDown(int i) {
+        int row = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && order.applyAsInt(heap[child + 1], heap[child]) < 0) child++;
+            if (order.applyAsInt(heap[child], row) >= 0) break;
+            place(heap[child], i);
+            i = child;
+        }
+        place(row, i);
+    }
+
+    private void place(int row, int i) {
+        heap[i] = row;
+        position[row] = i + 1;
+    }
+}
+
+class SchedulerResult {
+    // Null when the timeline went to an external sink
+    List<String> executionOrder;
+    transient RunLengthTimeline timeline;
+
+    // Null unless per-process results were requested
+    List<ProcessResult> processResults;
+    double averageWaitingTime;
+    double averageTurnaroundTime;
+    transient RunStatistics statistics;
+}
+
+
+// ================================
+// Preemptive SJF
+// ================================
+class SJFScheduler implements Scheduler {
+
+    public SchedulerResult run(List<Process> processes, int contextSwitch, int quantum, int agingInterval) {
+        return run(ArrivalCursor.sorted(processes), new SchedulerConfig(contextSwitch, quantum, agingInterval));
+    }
+
+    public SchedulerResult run(ArrivalCursor arrivals, SchedulerConfig config, TimelineSink timeline) {
+        SJFRun run = new SJFRun(arrivals, timeline);
+        simulate(run, config.contextSwitch, 0, -1);
+        return finish(run, config);
+    }
+
+    public boolean checkpoints() {
+        return true;
+    }
+
+    public SchedulerResult resume(ArrivalCursor arrivals, SchedulerConfig config, TimelineSink timeline,
+                                  SnapshotReader in) {
+        SJFRun run = new SJFRun(arrivals, timeline);
+        int time = in.getInt();
+        int last = in.getInt();
+        run.restore(in);
+
+        simulate(run, config.contextSwitch, time, last);
+        return finish(run, config);
+    }
+
+    private SchedulerResult finish(SJFRun run, SchedulerConfig config) {
+        SchedulerResult result = new SchedulerResult();
+        run.s.statistics.fill(result);
+        if (config.processResults) fillResults(run.t, run.s, result);
+        return result;
+    }
+
+    // The loop from its top, with the time and the last process to run
+    void simulate(SJFRun run, int contextSwitch, int time, int last) {
+
+        ArrivalCursor arrivals = run.arrivals;
+        RunState s = run.s;
+        IntHeap readyQueue = run.readyQueue;
+        TimelineSink timeline = run.timeline;
+
+        // Event-driven: time jumps straight to the next arrival or completion
+        // instead of advancing one unit per iteration
+        while (!readyQueue.isEmpty() || arrivals.hasNext()) {
+            if (s.snapshots != null && s.snapshots.due(time)) run.snapshot(time, last);
+            s.counters.events++;
+
+            while (arrivals.peekArrival() <= time) {
+                readyQueue.add(arrivals.poll());
+            }
+
+            int nextArrival = arrivals.peekArrival();
+
+            // CPU idle until the next arrival
+            if (readyQueue.isEmpty()) {
+                time = nextArrival;
+                continue;
+            }
+
+            s.counters.lookup(readyQueue.size());
+            int current = readyQueue.poll();
+
+            if (run.segment != -1 && run.segment != current) {
+                timeline.segment(run.segment, run.segmentStart, time, SegmentEnd.PREEMPTED);
+                run.segment = -1;
+            }
+
+            if (last != -1 && last != current) {
+                time += contextSwitch;
+                s.counters.contextSwitches++;
+            }
+
+            if (run.segment == -1) {
+                run.segment = current;
+                run.segmentStart = time;
+                s.started(current, time);
+            }
+
+            // Only a new arrival can preempt the running process, so run until the
+            // next one (at least one unit, arrivals during the switch are checked after it)
+            int slice = s.remaining[current];
+            if (nextArrival != Integer.MAX_VALUE) {
+                slice = Math.min(slice, Math.max(1, nextArrival - time));
+            }
+
+            s.remaining[current] -= slice;
+            time += slice;
+
+            if (s.remaining[current] == 0) {
+                s.complete(current, time);
+                timeline.segment(current, run.segmentStart, time, SegmentEnd.COMPLETED);
+                run.segment = -1;
+            } else {
+                readyQueue.add(current);
+            }
+
+            last = current;
+        }
+    }
+
+    // Per-process results in input order
+    void fillResults(ProcessTable t, RunState s, SchedulerResult r) {
+        r.processResults = new ArrayList<>(t.size);
+
+        for (int row = 0; row < t.size; row++) {
+            int tat = s.completion[row] - t.arrival[row];
+            int wt = tat - t.burst[row];
+
+            r.processResults.add(new ProcessResult(t.name(row), wt, tat));
+        }
+    }
+}
+
+// Ready queue and open timeline segment of a single SJF simulation
+class SJFRun {
+    final ArrivalCursor arrivals;
+    final ProcessTable t;
+    final RunState s;
+    final TimelineSink timeline;
+
+    // Shortest remaining time first, ties go to the earlier process in the input
+    final IntHeap readyQueue;
+
+    // Process holding the CPU since segmentStart, -1 if none
+    int segment = -1;
+    int segmentStart;
+
+    SJFRun(ArrivalCursor arrivals, TimelineSink timeline) {
+        this.arrivals = arrivals;
+        this.t = arrivals.table;
+        this.s = arrivals.state;
+        this.timeline = timeline;
+
+        RunState s = this.s;
+        readyQueue = new IntHeap(
+                (a, b) -> {
+                    if (s.remaining[a] != s.remaining[b])
+                        return Integer.compare(s.remaining[a], s.remaining[b]);
+                    return Integer.compare(a, b);
+                }
+        );
+    }
+
+    // Snapshot the run at the top of the loop, where the time and the last process
+    // are the loop's own. The heap orders rows by key with the row as the last
+    // tie-break, so its rows are enough.
+    void snapshot(int time, int last) {
+        s.snapshots.save(time, out -> {
+            out.putInt(time);
+            out.putInt(last);
+            out.putInt(segment);
+            out.putInt(segmentStart);
+            out.putInts(readyQueue.rows(), readyQueue.size());
+        });
+    }
+
+    // Everything snapshot saved after the time and last process
+    void restore(SnapshotReader in) {
+        segment = in.getInt();
+        segmentStart = in.getInt();
+        for (int row : in.getInts()) readyQueue.add(row);
+    }
+}
+
+// ================================
+// Round Robin
+// ================================
+class RRScheduler implements Scheduler {
+
+    public SchedulerResult run(List<Process> processes, int contextSwitch, int quantum, int agingInterval) {
+        return run(ArrivalCursor.sorted(processes), new SchedulerConfig(contextSwitch, quantum, agingInterval));
+    }
+
+    public SchedulerResult run(ArrivalCursor arrivals, SchedulerConfig config, TimelineSink timeline) {
+        RoundRobinRun run = new RoundRobinRun(arrivals, config.contextSwitch, config.rrQuantum, timeline);
+        run.simulate();
+        return finish(run, config);
+    }
+
+    public boolean checkpoints() {
+        return true;
+    }
+
+    public SchedulerResult resume(ArrivalCursor arrivals, SchedulerConfig config, TimelineSink timeline,
+                                  SnapshotReader in) {
+        RoundRobinRun run = new RoundRobinRun(arrivals, config.contextSwitch, config.rrQuantum, timeline);
+        run.restore(in);
+        run.loop();
+        return finish(run, config);
+    }
+
+    private SchedulerResult finish(RoundRobinRun run, SchedulerConfig config) {
+        run.s.statistics.fill(run.result);
+        if (config.processResults) run.fillResults();
+        return run.result;
+    }
+}
+
+// State of a single Round Robin simulation
+class RoundRobinRun {
+    final ArrivalCursor arrivals;
+    final ProcessTable t;
+    final RunState s;
+    final int contextSwitch;
+    final int quantum;
+    final TimelineSink timeline;
+
+    final SchedulerResult result = new SchedulerResult();
+
+    // Ready queue of process rows, a process is queued at most once
+    final IntRingQueue queue = new IntRingQueue(16);
+
+    // Rows admitted in one go
+    final IntList batch = new IntList(16);
+
+    // Per-process state indexed by row
+    int[] totalWaitingTime = new int[16];
+    int[] lastFinishTime = new int[16];
+
+    int time;
+
+    // Open timeline segment. A process that gets the CPU back right after its own
+    // quantum stays in the same segment when there is no context switch in between.
+    int segment = -1;
+    int segmentStart;
+    int segmentEnd;
+
+    RoundRobinRun(ArrivalCursor arrivals, int contextSwitch, int quantum, TimelineSink timeline) {
+        this.arrivals = arrivals;
+        this.t = arrivals.table;
+        this.s = arrivals.state;
+        this.contextSwitch = contextSwitch;
+        this.quantum = quantum;
+        this.timeline = timeline;
+    }
+
+    void simulate() {
+        admitArrivals(false);
+        loop();
+    }
+
+    // The main loop from its top
+    void loop() {
+
+        // Quanta run since the ready queue last changed through an arrival or completion
+        int stableSlices = 0;
+
+        while (!queue.isEmpty() || arrivals.hasNext()) {
+            if (s.snapshots != null && s.snapshots.due(time)) s.snapshots.save(time, this::save);
+            s.counters.events++;
+
+            // CPU idle until the next arrival
+            if (queue.isEmpty()) {
+                time = arrivals.peekArrival();
+                admitArrivals(false);
+                continue;
+            }
+
+            // A full round went by unchanged, skip ahead as many rounds as possible
+            if (stableSlices >= queue.size()) {
+                fastForward();
+                stableSlices = 0;
+            }
+
+            s.counters.lookup(queue.size());
+            int cur = queue.poll();
+
+            int wait = time - lastFinishTime[cur];
+            if (wait > 0) totalWaitingTime[cur] += wait;
+
+            int run = Math.min(quantum, s.remaining[cur]);
+
+            ran(cur, time, time + run);
+
+            s.remaining[cur] -= run;
+            time += run;
+
+            // Processes that arrived during the quantum go ahead of the current one
+            boolean changed = admitArrivals(true);
+
+            if (s.remaining[cur] == 0) {
+                changed = true;
+                s.complete(cur, time, totalWaitingTime[cur]);
+                closeSegment(SegmentEnd.COMPLETED);
+            } else {
+                queue.add(cur);
+            }
+
+            // Update last finish time
+            lastFinishTime[cur] = time;
+
+            // context switch, arrivals are seen tick by tick
+            time += contextSwitch;
+            s.counters.contextSwitches++;
+            changed |= admitArrivals(false);
+
+            if (changed) stableSlices = 0;
+            else stableSlices++;
+        }
+    }
+
+    // Apply as many full rounds as fit before the next arrival and before any queued
+    // process could finish, in closed form. In every such round each queued process
+    // runs a full quantum followed by a context switch and the queue order is unchanged.
+    void fastForward() {
+        if (quantum <= 0) return;
+
+        int k = queue.size();
+        long slice = (long) quantum + contextSwitch;
+        long round = k * slice;
+
+        int minRemaining = Integer.MAX_VALUE;
+        for (int i = 0; i < k; i++) {
+            minRemaining = Math.min(minRemaining, s.remaining[queue.get(i)]);
+        }
+
+        // No process may finish, and the last switch must end before the next arrival
+        long rounds = (minRemaining - 1) / quantum;
+        if (arrivals.hasNext()) {
+            rounds = Math.min(rounds, ((long) arrivals.peekArrival() - time - 1) / round);
+        }
+        if (rounds <= 0) return;
+
+        int m = (int) rounds;
+
+        // Wait between two turns of the same process once the rounds are steady
+        long steadyWait = round - quantum;
+
+        for (int i = 0; i < k; i++) {
+            int row = queue.get(i);
+            long firstStart = time + i * slice;
+
+            totalWaitingTime[row] += (int) (firstStart - lastFinishTime[row] + (m - 1) * steadyWait);
+            lastFinishTime[row] = (int) (firstStart + (m - 1) * round + quantum);
+            s.remaining[row] -= m * quantum;
+        }
+
+        // A single process without context switches keeps its segment, otherwise
+        // every turn is a new one
+        if (k == 1 && contextSwitch == 0) {
+            ran(queue.get(0), time, lastFinishTime[queue.get(0)]);
+        } else {
+            for (int r = 0; r < m; r++) {
+                for (int i = 0; i < k; i++) {
+                    int start = (int) (time + r * round + i * slice);
+                    ran(queue.get(i), start, start + quantum);
+                }
+            }
+        }
+
+        time = (int) (time + m * round);
+        s.counters.contextSwitches += (long) k * m;
+    }
+
+    // Record that a process ran from start to end
+    private void ran(int row, int start, int end) {
+        if (row != segment || start != segmentEnd) {
+            closeSegment(SegmentEnd.QUANTUM_EXPIRED);
+            segment = row;
+            segmentStart = start;
+            s.started(row, start);
+        }
+        segmentEnd = end;
+    }
+
+    private void closeSegment(SegmentEnd reason) {
+        if (segment != -1) {
+            timeline.segment(segment, segmentStart, segmentEnd, reason);
+            segment = -1;
+        }
+    }
+
+    // Enqueue every process that has arrived by now, in arrival order.
+    // With inputOrder set the whole batch is queued in input order instead, as the
+    // end-of-quantum rescan does for arrivals spanning several time units.
+    // Returns true if anything arrived.
+    boolean admitArrivals(boolean inputOrder) {
+        if (arrivals.peekArrival() > time) return false;
+
+        batch.clear();
+        while (arrivals.peekArrival() <= time) {
+            int row = arrivals.poll();
+            register(row);
+            batch.add(row);
+        }
+
+        if (inputOrder && t.arrival[batch.get(0)] != t.arrival[batch.get(batch.size() - 1)]) {
+            batch.sort();
+        }
+
+        for (int i = 0; i < batch.size(); i++) queue.add(batch.get(i));
+        return true;
+    }
+
+    private void register(int row) {
+        if (row >= lastFinishTime.length) {
+            int capacity = Math.max(row + 1, lastFinishTime.length * 2);
+            totalWaitingTime = Arrays.copyOf(totalWaitingTime, capacity);
+            lastFinishTime = Arrays.copyOf(lastFinishTime, capacity);
+        }
+
+        lastFinishTime[row] = t.arrival[row];
+    }
+
+    // State at the top of the loop. The count of quanta since the queue last changed
+    // is left out: it only decides when to fast-forward, which gives the same result
+    // whenever it happens.
+    void save(SnapshotWriter out) {
+        out.putInt(time);
+        out.putInt(segment);
+        out.putInt(segmentStart);
+        out.putInt(segmentEnd);
+
+        int[] rows = new int[queue.size()];
+        for (int i = 0; i < rows.length; i++) rows[i] = queue.get(i);
+        out.putInts(rows, rows.length);
+
+        out.putColumn(totalWaitingTime);
+        out.putColumn(lastFinishTime);
+    }
+
+    void restore(SnapshotReader in) {
+        time = in.getInt();
+        segment = in.getInt();
+        segmentStart = in.getInt();
+        segmentEnd = in.getInt();
+        for (int row : in.getInts()) queue.add(row);
+        totalWaitingTime = in.getColumn(totalWaitingTime);
+        lastFinishTime = in.getColumn(lastFinishTime);
+    }
+
+    // Per-process results in input order, using the accumulated waiting times
+    void fillResults() {
+        result.processResults = new ArrayList<>(t.size);
+
+        for (int row = 0; row < t.size; row++) {
+            int wt = totalWaitingTime[row];
+            int tat = s.completion[row] - t.arrival[row];
+
+            result.processResults.add(new ProcessResult(t.name(row), wt, tat));
+        }
+    }
+}
+
+// Ready queue for the Priority scheduler with lazy aging.
+// A waiting process ages every agingInterval units counted from its tempArrival.
+// Instead of touching every queued process on every tick, each one is keyed by
+// the time of its next aging step and only those whose step is due get re-ordered.
+class AgingReadyQueue {
+    private final ProcessTable t;
+    private final RunState s;
+    private final int agingInterval;
+
+    // Time of the next aging step of each queued row
+    private int[] nextAging = new int[16];
+
+    // Priority, then arrival, then name (the row only keeps distinct processes apart)
+    private final IntHeap ready;
+
+    // Rows that can still age, by the time of their next aging step
+    private final IntHeap aging;
+
+    // Read once, a recording started later only sees the aging of later runs
+    private final boolean agingEvents = SchedulerEvents.aging();
+
+    AgingReadyQueue(ProcessTable t, RunState s, int agingInterval) {
+        this.t = t;
+        this.s = s;
+        this.agingInterval = agingInterval;
+
+        ready = new IntHeap(
+                (a, b) -> {
+                    if (s.priority[a] != s.priority[b])
+                        return Integer.compare(s.priority[a], s.priority[b]);
+                    if (t.arrival[a] != t.arrival[b])
+                        return Integer.compare(t.arrival[a], t.arrival[b]);
+                    if (t.nameId[a] != t.nameId[b])
+                        return t.name(a).compareTo(t.name(b));
+                    return Integer.compare(a, b);
+                }
+        );
+
+        aging = new IntHeap(
+                (a, b) -> {
+                    if (nextAging[a] != nextAging[b])
+                        return Integer.compare(nextAging[a], nextAging[b]);
+                    return Integer.compare(a, b);
+                }
+        );
+    }
+
+    // Add a row at the given time. Its aging steps fall on multiples of
+    // agingInterval after tempArrival.
+    void add(int row, int tempArrival, int time) {
+        ready.add(row);
+
+        if (agingInterval > 0 && s.priority[row] != 1) {
+            if (row >= nextAging.length) nextAging = Arrays.copyOf(nextAging, Math.max(row + 1, nextAging.length * 2));
+
+            nextAging[row] = tempArrival + ((time - tempArrival) / agingInterval + 1) * agingInterval;
+            aging.add(row);
+        }
+    }
+
+    int poll() {
+        int row = ready.poll();
+        if (aging.contains(row)) aging.remove(row);
+        return row;
+    }
+
+    boolean isEmpty() {
+        return ready.isEmpty();
+    }
+
+    int size() {
+        return ready.size();
+    }
+
+    // Apply every aging step due at or before the given time
+    void applyAging(int time) {
+        while (!aging.isEmpty() && nextAging[aging.peek()] <= time) {
+            int row = aging.poll();
+
+            s.priority[row] = Math.max(1, s.priority[row] - 1);
+            ready.update(row);
+            s.counters.agingSteps++;
+            if (agingEvents) report(row, nextAging[row]);
+
+            if (s.priority[row] != 1) {
+                nextAging[row] += agingInterval;
+                aging.add(row);
+            }
+        }
+    }
+
+    // Time of the earliest pending aging step, or Integer.MAX_VALUE if none
+    int nextAgingTime() {
+        return aging.isEmpty() ? Integer.MAX_VALUE : nextAging[aging.peek()];
+    }
+
+    // Queued rows and those that can still age with their next step. Both heaps order
+    // rows by key with the row as the last tie-break, so their contents are enough.
+    void save(SnapshotWriter out) {
+        out.putInts(ready.rows(), ready.size());
+
+        int[] agingRows = aging.rows();
+        int[] agingTimes = new int[agingRows.length];
+        for (int i = 0; i < agingRows.length; i++) agingTimes[i] = nextAging[agingRows[i]];
+        out.putInts(agingRows, agingRows.length);
+        out.putInts(agingTimes, agingTimes.length);
+    }
+
+    // Into an empty queue, once the run state is restored
+    void restore(SnapshotReader in) {
+        for (int row : in.getInts()) ready.add(row);
+
+        int[] agingRows = in.getInts();
+        int[] agingTimes = in.getInts();
+        for (int i = 0; i < agingRows.length; i++) {
+            int row = agingRows[i];
+            if (row >= nextAging.length) nextAging = Arrays.copyOf(nextAging, Math.max(row + 1, nextAging.length * 2));
+
+            nextAging[row] = agingTimes[i];
+            aging.add(row);
+        }
+    }
+
+    private void report(int row, int time) {
+        AgingEvent event = new AgingEvent();
+        if (event.shouldCommit()) {
+            event.process = t.name(row);
+            event.time = time;
+            event.priority = s.priority[row];
+            event.commit();
+        }
+    }
+}
+
+class PriorityScheduler implements Scheduler {
+
+    // Step one time unit per iteration instead of jumping between events.
+    // Kept as the reference implementation the event-driven engine must match.
+    final boolean perUnit;
+
+    PriorityScheduler() {
+        this(false);
+    }
+
+    PriorityScheduler(boolean perUnit) {
+        this.perUnit = perUnit;
+    }
+
+    public SchedulerResult run(
+            List<Process> input,
+            int contextSwitch,
+            int quantum,
+            int agingInterval
+    ) {
+        return run(ArrivalCursor.sorted(input), new SchedulerConfig(contextSwitch, quantum, agingInterval));
+    }
+
+    public SchedulerResult run(ArrivalCursor arrivals, SchedulerConfig config, TimelineSink timeline) {
+        PriorityRun run = new PriorityRun(arrivals, config.agingInterval, timeline);
+
+        SchedulerResult result = perUnit
+                ? runPerUnit(run, config.contextSwitch)
+                : runEventDriven(run, config.contextSwitch);
+
+        return finish(run, config, result);
+    }
+
+    public boolean checkpoints() {
+        return true;
+    }
+
+    // Both loops save the same state at their top
+    public SchedulerResult resume(ArrivalCursor arrivals, SchedulerConfig config, TimelineSink timeline,
+                                  SnapshotReader in) {
+        PriorityRun run = new PriorityRun(arrivals, config.agingInterval, timeline);
+        int time = in.getInt();
+        int lastProcess = in.getInt();
+        run.restore(in);
+
+        SchedulerResult result = perUnit
+                ? runPerUnit(run, config.contextSwitch, time, lastProcess)
+                : runEventDriven(run, config.contextSwitch, time, lastProcess);
+
+        return finish(run, config, result);
+    }
+
+    private SchedulerResult finish(PriorityRun run, SchedulerConfig config, SchedulerResult result) {
+        run.s.statistics.fill(result);
+        if (config.processResults) fillResults(run.t, run.s, run.admitted, result);
+        return result;
+    }
+
+    // Jumps straight to the next instant where the decision can change: an arrival,
+    // the running process completing, an aging step of a waiting process or the end
+    // of a context switch.
+    SchedulerResult runEventDriven(PriorityRun run, int contextSwitch) {
+        int time = run.arrivals.peekArrival();
+        run.advance(time);
+
+        return runEventDriven(run, contextSwitch, time, NONE);
+    }
+
+    // The loop from its top, with the time and last process it had there
+    SchedulerResult runEventDriven(PriorityRun run, int contextSwitch, int time, int lastProcess) {
+
+        ArrivalCursor arrivals = run.arrivals;
+        ProcessTable t = run.t;
+        RunState s = run.s;
+        AgingReadyQueue readyQueue = run.readyQueue;
+
+        SchedulerResult result = new SchedulerResult();
+
+        while (!readyQueue.isEmpty() || arrivals.hasNext()) {
+            if (s.snapshots != null && s.snapshots.due(time)) run.snapshot(time, lastProcess);
+            s.counters.events++;
+
+            int current = -1;
+            int currentName = IDLE;
+
+            if (!readyQueue.isEmpty()) {
+                s.counters.lookup(readyQueue.size());
+                current = readyQueue.poll();
+                currentName = t.nameId[current];
+                run.dispatch(current, time);
+            }
+
+            // ================= Context Switch =================
+            if (lastProcess != NONE
+                    && lastProcess != currentName
+                    && lastProcess != IDLE) {
+
+                if (current != -1)
+                    readyQueue.add(current, run.tempArrival[current], time);
+                run.switchingTo = current;
+                s.counters.contextSwitches++;
+
+                time += contextSwitch;
+                run.advance(time);
+
+                lastProcess = currentName;
+                continue;
+            }
+
+            lastProcess = currentName;
+
+            // Idle until the next arrival
+            if (current == -1) {
+                time = arrivals.peekArrival();
+                run.advance(time);
+                continue;
+            }
+
+            // Run until the next event, nothing can preempt before it
+            int next = time + s.remaining[current];
+            next = Math.min(next, arrivals.peekArrival());
+            next = Math.min(next, readyQueue.nextAgingTime());
+
+            s.remaining[current] -= next - time;
+            run.ran(current, time, next);
+            time = next;
+            run.advance(time);
+
+            if (s.remaining[current] > 0) {
+                run.tempArrival[current] = time;
+                readyQueue.add(current, time, time);
+            } else {
+                run.complete(current, time);
+            }
+        }
+
+        return result;
+    }
+
+    // Markers for the last process in place of a name id: nothing has run yet, or the CPU was idle
+    private static final int NONE = -1;
+    private static final int IDLE = -2;
+
+    SchedulerResult runPerUnit(PriorityRun run, int contextSwitch) {
+        int time = run.arrivals.peekArrival();
+
+        // initial arrivals
+        run.admit(time);
+
+        return runPerUnit(run, contextSwitch, time, NONE);
+    }
+
+    SchedulerResult runPerUnit(PriorityRun run, int contextSwitch, int time, int lastProcess) {
+
+        ArrivalCursor arrivals = run.arrivals;
+        ProcessTable t = run.t;
+        RunState s = run.s;
+        AgingReadyQueue readyQueue = run.readyQueue;
+
+        SchedulerResult result = new SchedulerResult();
+
+        while (!readyQueue.isEmpty() || arrivals.hasNext()) {
+            if (s.snapshots != null && s.snapshots.due(time)) run.snapshot(time, lastProcess);
+            s.counters.events++;
+
+            int current = -1;
+            int currentName = IDLE;
+
+            if (!readyQueue.isEmpty()) {
+                s.counters.lookup(readyQueue.size());
+                current = readyQueue.poll();
+                currentName = t.nameId[current];
+                run.dispatch(current, time);
+            }
+
+            // ================= Context Switch =================
+            if (lastProcess != NONE
+                    && lastProcess != currentName
+                    && lastProcess != IDLE) {
+
+                if (current != -1)
+                    readyQueue.add(current, run.tempArrival[current], time);
+                run.switchingTo = current;
+                s.counters.contextSwitches++;
+
+                for (int c = 0; c < contextSwitch; c++) {
+                    time++;
+                    readyQueue.applyAging(time);
+                    run.admit(time);
+                }
+
+                lastProcess = currentName;
+                continue;
+            }
+
+            lastProcess = currentName;
+
+            //Execute 1 time unit
+            time++;
+
+            if (current != -1) {
+                s.remaining[current]--;
+                run.ran(current, time - 1, time);
+            }
+
+            readyQueue.applyAging(time);
+            run.admit(time);
+
+            if (current == -1)
+                continue;
+
+            if (s.remaining[current] > 0) {
+                run.tempArrival[current] = time;
+                readyQueue.add(current, time, time);
+            } else {
+                run.complete(current, time);
+            }
+        }
+
+        return result;
+    }
+
+    // Per-process results in the given order
+    void fillResults(ProcessTable t, RunState s, IntList rows, SchedulerResult r) {
+        r.processResults = new ArrayList<>(rows.size());
+
+        for (int i = 0; i < rows.size(); i++) {
+            int row = rows.get(i);
+            int tat = s.completion[row] - t.arrival[row];
+            int wt = tat - t.burst[row];
+
+            r.processResults.add(new ProcessResult(t.name(row), wt, tat));
+        }
+    }
+}
+
+// Arrivals and per-process state of a single Priority simulation
+class PriorityRun {
+    final ArrivalCursor arrivals;
+    final ProcessTable t;
+    final RunState s;
+    final AgingReadyQueue readyQueue;
+    final TimelineSink timeline;
+
+    // Open timeline segment, -1 if none
+    int segment = -1;
+    int segmentStart;
+    int segmentEnd;
+
+    // Process picked when the last context switch started, -1 if none
+    int switchingTo = -1;
+
+    // Every row admitted so far, in arrival order
+    final IntList admitted = new IntList(16);
+
+    // Time each row last joined the ready queue, aging is counted from it
+    int[] tempArrival = new int[16];
+
+    PriorityRun(ArrivalCursor arrivals, int agingInterval, TimelineSink timeline) {
+        this.arrivals = arrivals;
+        this.t = arrivals.table;
+        this.s = arrivals.state;
+        this.readyQueue = new AgingReadyQueue(t, s, agingInterval);
+        this.timeline = timeline;
+    }
+
+    // A process was picked from the ready queue, any other one on the CPU was preempted.
+    // A process picked for a context switch that loses the CPU to another one before
+    // running shows up as an empty segment at the end of the switch.
+    void dispatch(int row, int time) {
+        if (segment != -1 && segment != row) {
+            timeline.segment(segment, segmentStart, segmentEnd, SegmentEnd.PREEMPTED);
+            segment = -1;
+        }
+
+        if (switchingTo != -1 && switchingTo != row) {
+            timeline.segment(switchingTo, time, time, SegmentEnd.PREEMPTED);
+        }
+        switchingTo = -1;
+    }
+
+    // Record that a process ran from start to end
+    void ran(int row, int start, int end) {
+        if (segment == -1) {
+            segment = row;
+            segmentStart = start;
+            s.started(row, start);
+        }
+        segmentEnd = end;
+    }
+
+    void complete(int row, int time) {
+        s.complete(row, time);
+        timeline.segment(row, segmentStart, time, SegmentEnd.COMPLETED);
+        segment = -1;
+    }
+
+    // Age and admit everything up to the given time, in the order the per-unit loop
+    // would: at each instant aging is applied before that instant's arrivals join.
+    void advance(int time) {
+        while (arrivals.peekArrival() <= time) {
+            int arrival = arrivals.peekArrival();
+            readyQueue.applyAging(arrival);
+            admit(arrival);
+        }
+
+        readyQueue.applyAging(time);
+    }
+
+    // Snapshot the run at the top of the engine's loop, where the time and the last
+    // process are the loop's own
+    void snapshot(int time, int lastProcess) {
+        s.snapshots.save(time, out -> {
+            out.putInt(time);
+            out.putInt(lastProcess);
+            out.putInt(segment);
+            out.putInt(segmentStart);
+            out.putInt(segmentEnd);
+            out.putInt(switchingTo);
+            if (out.keepsResults()) admitted.save(out);
+            out.putColumn(tempArrival);
+            readyQueue.save(out);
+        });
+    }
+
+    // Everything snapshot saved after the time and last process
+    void restore(SnapshotReader in) {
+        segment = in.getInt();
+        segmentStart = in.getInt();
+        segmentEnd = in.getInt();
+        switchingTo = in.getInt();
+        if (in.keepsResults()) admitted.restore(in);
+        tempArrival = in.getColumn(tempArrival);
+        readyQueue.restore(in);
+    }
+
+    // Move every process that has arrived by the given time into the ready queue
+    void admit(int time) {
+        while (arrivals.peekArrival() <= time) {
+            int row = arrivals.poll();
+            if (row >= tempArrival.length) tempArrival = Arrays.copyOf(tempArrival, Math.max(row + 1, tempArrival.length * 2));
+
+            tempArrival[row] = t.arrival[row];
+            admitted.add(row);
+            readyQueue.add(row, tempArrival[row], time);
+        }
+    }
+}
+
+
+
+
+// ================================
+// AG Scheduler Classes
+// ================================
+enum StopReason {
+    NONE,
+    PRIORITY_PREEMPT,
+    SJF_PREEMPT
+}
+
+// Ready queue for the AG scheduler serving three views in O(log n):
+// FIFO order, highest priority and shortest remaining time.
+// Ties in the priority and SJF views go to the process queued first, as with a
+// front-to-back scan. A process removed through one view leaves stale entries in
+// the other two; they are recognised by sequence number and dropped lazily.
+class AGReadyQueue {
+
+    private static class Entry {
+        final int row;
+        final long seq;
+        final int priority;
+        final int remainingTime;
+
+        Entry(int row, long seq, int priority, int remainingTime) {
+            this.row = row;
+            this.seq = seq;
+            this.priority = priority;
+            this.remainingTime = remainingTime;
+        }
+    }
+
+    private final ProcessTable t;
+    private final RunState s;
+
+    private long nextSeq;
+    private int size;
+
+    // Sequence number of each row's entries, -1 when not queued
+    private long[] readySeq = new long[0];
+
+    private final ArrayDeque<Entry> fifo = new ArrayDeque<>();
+
+    private final PriorityQueue<Entry> byPriority = new PriorityQueue<>(
+            (e1, e2) -> {
+                if (e1.priority != e2.priority)
+                    return Integer.compare(e1.priority, e2.priority);
+                return Long.compare(e1.seq, e2.seq);
+            }
+    );
+
+    private final PriorityQueue<Entry> byRemaining = new PriorityQueue<>(
+            (e1, e2) -> {
+                if (e1.remainingTime != e2.remainingTime)
+                    return Integer.compare(e1.remainingTime, e2.remainingTime);
+                return Long.compare(e1.seq, e2.seq);
+            }
+    );
+
+    AGReadyQueue(ProcessTable t, RunState s) {
+        this.t = t;
+        this.s = s;
+    }
+
+    // Priority and remaining time must not change while the process is queued
+    void add(int row) {
+        if (row >= readySeq.length) {
+            int old = readySeq.length;
+            readySeq = Arrays.copyOf(readySeq, Math.max(row + 1, old * 2));
+            Arrays.fill(readySeq, old, readySeq.length, -1);
+        }
+
+        Entry e = new Entry(row, nextSeq++, t.priority[row], s.remaining[row]);
+        readySeq[row] = e.seq;
+        fifo.addLast(e);
+        byPriority.add(e);
+        byRemaining.add(e);
+        size++;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int pollFirst() {
+        return take(head(fifo));
+    }
+
+    int pollHighestPriority() {
+        return take(head(byPriority));
+    }
+
+    int pollShortest() {
+        return take(head(byRemaining));
+    }
+
+    // Row with the highest priority, or -1 if the queue is empty
+    int peekHighestPriority() {
+        Entry e = head(byPriority);
+        return e == null ? -1 : e.row;
+    }
+
+    // Row with the shortest remaining time, or -1 if the queue is empty
+    int peekShortest() {
+        Entry e = head(byRemaining);
+        return e == null ? -1 : e.row;
+    }
+
+    private boolean isLive(Entry e) {
+        return readySeq[e.row] == e.seq;
+    }
+
+    // Queued rows in FIFO order, stale entries left out. Sequence numbers grow along
+    // the FIFO, so queuing the rows again in that order keeps the other two views'
+    // tie-breaks.
+    void save(SnapshotWriter out) {
+        int[] rows = new int[size];
+        int n = 0;
+        for (Entry e : fifo) {
+            if (isLive(e)) rows[n++] = e.row;
+        }
+        out.putInts(rows, n);
+    }
+
+    // Into an empty queue, once the run state is restored
+    void restore(SnapshotReader in) {
+        for (int row : in.getInts()) add(row);
+    }
+
+    // Drop stale entries from the front of a view and return its live head
+    private Entry head(Queue<Entry> view) {
+        Entry e = view.peek();
+        while (e != null && !isLive(e)) {
+            view.poll();
+            e = view.peek();
+        }
+        return e;
+    }
+
+    private int take(Entry e) {
+        if (e == null)
+            return -1;
+
+        readySeq[e.row] = -1;
+        size--;
+        return e.row;
+    }
+}
+
+// Processes are rows of the cursor's table. Remaining and completion live in the
+// run state; the current quantum is kept here, and every quantum a process is given
+// (its initial one first) is appended to a single history log of (row, quantum) pairs
+// unless recordHistory is off.
+class AGSchedulerCore {
+    int currentTime;
+    ArrivalCursor arrivals;
+    ProcessTable t;
+    RunState s;
+    AGReadyQueue readyQueue;
+    int[] quantum = new int[16];
+    IntList historyRows = new IntList(16);
+    IntList historyQuanta = new IntList(16);
+    boolean recordHistory = true;
+    TimelineSink timeline;
+    StopReason lastStopReason;
+
+    // Rows admitted in one go
+    private final IntList batch = new IntList(16);
+
+    AGSchedulerCore(ArrivalCursor arrivals, TimelineSink timeline) {
+        currentTime = 0;
+        this.arrivals = arrivals;
+        t = arrivals.table;
+        s = arrivals.state;
+        readyQueue = new AGReadyQueue(t, s);
+        this.timeline = timeline;
+        lastStopReason = StopReason.NONE;
+    }
+
+    boolean hasPendingArrivals() {
+        return arrivals.hasNext();
+    }
+
+    // Move processes that have arrived to the ready queue, in input order
+    void moveArrivedProcesses() {
+        if (arrivals.peekArrival() > currentTime)
+            return;
+
+        batch.clear();
+        while (arrivals.peekArrival() <= currentTime)
+            batch.add(admit(arrivals.poll()));
+
+        // Arrivals spanning several time units are queued in input order
+        if (t.arrival[batch.get(0)] != t.arrival[batch.get(batch.size() - 1)])
+            batch.sort();
+
+        for (int i = 0; i < batch.size(); i++)
+            readyQueue.add(batch.get(i));
+    }
+
+    private int admit(int row) {
+        if (row >= quantum.length)
+            quantum = Arrays.copyOf(quantum, Math.max(row + 1, quantum.length * 2));
+
+        setQuantum(row, t.quantum[row]);
+        return row;
+    }
+
+    private void setQuantum(int row, int value) {
+        quantum[row] = value;
+        if (recordHistory) {
+            historyRows.add(row);
+            historyQuanta.add(value);
+        }
+    }
+
+    private void complete(int row, int start) {
+        setQuantum(row, 0);
+        s.complete(row, currentTime);
+        timeline.segment(row, start, currentTime, SegmentEnd.COMPLETED);
+    }
+
+    // Select the next process to run based on scheduling logic
+    int pickNextProcess() {
+        if (readyQueue.isEmpty())
+            return -1;
+
+        s.counters.lookup(readyQueue.size());
+
+        if (lastStopReason == StopReason.NONE)
+            return readyQueue.pollFirst();
+
+        // Pick highest priority process if last stop was priority preemption
+        if (lastStopReason == StopReason.PRIORITY_PREEMPT)
+            return readyQueue.pollHighestPriority();
+
+        // Pick shortest remaining time if last stop was SJF preemption
+        return readyQueue.pollShortest();
+    }
+
+    void run() {
+        while (!readyQueue.isEmpty() || hasPendingArrivals()) {
+            if (s.snapshots != null && s.snapshots.due(currentTime)) s.snapshots.save(currentTime, this::save);
+            s.counters.events++;
+
+            moveArrivedProcesses();
+
+            // Idle until the next arrival
+            if (readyQueue.isEmpty()) {
+                currentTime = arrivals.peekArrival();
+                continue;
+            }
+
+            int current = pickNextProcess();
+            int start = currentTime;
+            s.started(current, start);
+            lastStopReason = StopReason.NONE;
+
+            int quantum = this.quantum[current];
+            int q25 = (int) Math.ceil(quantum * 0.25);
+            int q50 = (int) Math.ceil(quantum * 0.5);
+            int used = 0;
+
+            // Run first 25% of quantum (Non preemptive FCFE)
+            int run = Math.min(q25, s.remaining[current]);
+            s.remaining[current] -= run;
+            currentTime += run;
+            used += run;
+            moveArrivedProcesses();
+
+            if (s.remaining[current] == 0) {
+                complete(current, start);
+                continue;
+            }
+
+            // Run the next 25% of quantum (Non preemptive Priority)
+            while (used < q50 && s.remaining[current] > 0) {
+                s.counters.lookup(readyQueue.size());
+                int hp = readyQueue.peekHighestPriority();
+
+                // Preempt if a higher priority process exists
+                if (hp != -1 && t.priority[hp] < t.priority[current]) {
+                    int rem = quantum - used;
+                    setQuantum(current, quantum + (int) Math.ceil(rem / 2.0));
+                    readyQueue.add(current);
+                    timeline.segment(current, start, currentTime, SegmentEnd.PRIORITY_PREEMPT);
+                    lastStopReason = StopReason.PRIORITY_PREEMPT;
+                    break;
+                }
+
+                run = Math.min(q25, s.remaining[current]);
+                s.remaining[current] -= run;
+                currentTime += run;
+                used += run;
+                moveArrivedProcesses();
+            }
+
+            if (s.remaining[current] == 0) {
+                complete(current, start);
+                continue;
+            }
+
+            if (lastStopReason == StopReason.PRIORITY_PREEMPT)
+                continue;
+
+            // Run remaining quantum with SJF preemptive
+            while (used < quantum && s.remaining[current] > 0) {
+                s.counters.lookup(readyQueue.size());
+                int sj = readyQueue.peekShortest();
+
+                if (sj != -1 && s.remaining[sj] < s.remaining[current]) {
+                    int rem = quantum - used;
+                    setQuantum(current, quantum + rem);
+                    readyQueue.add(current);
+                    timeline.segment(current, start, currentTime, SegmentEnd.SJF_PREEMPT);
+                    lastStopReason = StopReason.SJF_PREEMPT;
+                    break;
+                }
+
+                s.remaining[current]--;
+                currentTime++;
+                used++;
+                moveArrivedProcesses();
+            }
+
+            if (s.remaining[current] == 0) {
+                complete(current, start);
+            } else if (lastStopReason == StopReason.NONE) {
+                setQuantum(current, quantum + 2);
+                readyQueue.add(current);
+                timeline.segment(current, start, currentTime, SegmentEnd.QUANTUM_EXPIRED);
+            }
+        }
+    }
+
+    // State at the top of the loop in run
+    void save(SnapshotWriter out) {
+        out.putInt(currentTime);
+        out.putInt(lastStopReason.ordinal());
+        out.putColumn(quantum);
+        if (out.keepsResults()) {
+            historyRows.save(out);
+            historyQuanta.save(out);
+        }
+        readyQueue.save(out);
+    }
+
+    void restore(SnapshotReader in) {
+        currentTime = in.getInt();
+        lastStopReason = StopReason.values()[in.getInt()];
+        quantum = in.getColumn(quantum);
+        if (in.keepsResults()) {
+            historyRows.restore(in);
+            historyQuanta.restore(in);
+        }
+        readyQueue.restore(in);
+    }
+
+    // Quantum history of every row, in row order
+    List<List<Integer>> quantumHistories() {
+        List<List<Integer>> histories = new ArrayList<>(t.size);
+        for (int row = 0; row < t.size; row++) histories.add(new ArrayList<>());
+
+        for (int i = 0; i < historyRows.size(); i++) {
+            histories.get(historyRows.get(i)).add(historyQuanta.get(i));
+        }
+        return histories;
+    }
+}
+
+// Runs AGSchedulerCore through the common Scheduler interface
+class AGScheduler implements Scheduler {
+
+    public boolean listsEveryDispatch() {
+        return true;
+    }
+
+    // Quanta come from the processes
+    public boolean readsParameters() {
+        return false;
+    }
+
+    public SchedulerResult run(ArrivalCursor arrivals, SchedulerConfig config, TimelineSink timeline) {
+
+        AGSchedulerCore ag = new AGSchedulerCore(arrivals, timeline);
+        ag.recordHistory = config.processResults;
+        ag.run();
+
+        return result(ag, config);
+    }
+
+    public boolean checkpoints() {
+        return true;
+    }
+
+    public SchedulerResult resume(ArrivalCursor arrivals, SchedulerConfig config, TimelineSink timeline,
+                                  SnapshotReader in) {
+
+        AGSchedulerCore ag = new AGSchedulerCore(arrivals, timeline);
+        ag.recordHistory = config.processResults;
+        ag.restore(in);
+        ag.run();
+
+        return result(ag, config);
+    }
+
+    private SchedulerResult result(AGSchedulerCore ag, SchedulerConfig config) {
+        SchedulerResult result = new SchedulerResult();
+        ag.s.statistics.fill(result);
+        if (!config.processResults)
+            return result;
+
+        ProcessTable t = ag.t;
+        RunState s = ag.s;
+        List<List<Integer>> histories = ag.quantumHistories();
+
+        // Results are reported in input order
+        result.processResults = new ArrayList<>(t.size);
+        for (int row = 0; row < t.size; row++) {
+            int tat = s.completion[row] - t.arrival[row];
+            int wt = tat - t.burst[row];
+
+            ProcessResult pr = new ProcessResult(t.name(row), wt, tat);
+            pr.quantumHistory = histories.get(row);
+            result.processResults.add(pr);
+        }
+
+        return result;
+    }
+}
+
+// JSON Models for AG
+class AGTestCase {
+    AGInput input;
+    AGExpectedOutput expectedOutput;
+}
+
+class AGInput {
+    List<AGSchedulerProcessJSON> processes;
+
+    Workload toWorkload() {
+        List<Process> ps = new ArrayList<>();
+        for (AGSchedulerProcessJSON p : processes) {
+            ps.add(new Process(p.name, p.arrival, p.burst, p.priority, p.quantum));
+        }
+        return new Workload(ps, new SchedulerConfig(0, 0, 0));
+    }
+}
+
+class AGSchedulerProcessJSON {
+    String name;
+    int arrival;
+    int burst;
+    int priority;
+    int quantum;
+}
+
+class AGExpectedOutput {
+    List<String> executionOrder;
+    List<ProcessResult> processResults;
+}
+//---------------------------------------------------------------
+
+// Test Runner for SJF / RR /Priority
+class TestCase {
+    String name;
+    TestInput input;
+    ExpectedOutput expectedOutput;
+}
+
+class TestInput {
+    int contextSwitch;
+    int rrQuantum;
+    int agingInterval;
+    List<Process> processes;
+
+    Workload toWorkload() {
+        return new Workload(processes, new SchedulerConfig(contextSwitch, rrQuantum, agingInterval));
+    }
+}
+
+class ExpectedOutput {
+    SchedulerResult SJF;
+    SchedulerResult RR;
+    SchedulerResult Priority;
+
+    SchedulerResult get(String algorithm) {
+        switch (algorithm) {
+            case "SJF": return SJF;
+            case "RR": return RR;
+            case "Priority": return Priority;
+            default: return null;
+        }
+    }
+}
+
+//For the other schedule ( SJF / RR / Priority)
+class TestRunner {
+
+    static final String[] ALGORITHMS = {"SJF", "RR", "Priority"};
+
+    static void runTest(String path) throws Exception {
+
+        Gson gson = new Gson();
+        TestCase tc = gson.fromJson(Files.readString(Paths.get(path)), TestCase.class);
+
+        System.out.println("\n=== Running Test: " + tc.name + " ===");
+
+        Workload workload = tc.input.toWorkload();
+
+        for (int i = 0; i < ALGORITHMS.length; i++) {
+            String algorithm = ALGORITHMS[i];
+            SchedulerResult actual = ResultCache.cached(algorithm, workload);
+            SchedulerResult expected = tc.expectedOutput.get(algorithm);
+
+            report(System.out, algorithm, actual, expected.executionOrder, expected.processResults);
+
+            if (i < ALGORITHMS.length - 1) {
+                System.out.println("--------------------------------------------------");
+            }
+        }
+    }
+
+    // Compare against the expected output and print the verdict and the results.
+    // Returns true if everything matched.
+    static boolean report(PrintStream out, String algorithm, SchedulerResult actual,
+                          List<String> expectedOrder, List<ProcessResult> expectedResults) {
+
+        List<String> failures = new ArrayList<>();
+
+        // Check Execution Order
+        if (!actual.executionOrder.equals(expectedOrder)) {
+            failures.add("[Execution Order] does not match\nExpected = "
+                    + expectedOrder
+                    + "\nActual = " + actual.executionOrder);
+        }
+
+        // Check Waiting Time / Turnaround Time
+        if (expectedResults != null) {
+            for (int i = 0; i < actual.processResults.size(); i++) {
+                ProcessResult pr = actual.processResults.get(i);
+                ProcessResult expected = expectedResults.get(i);
+
+                if (pr.waitingTime != expected.waitingTime) {
+                    failures.add("[Waiting Time] does not match for " + pr.name
+                            + "\nExpected = " + expected.waitingTime
+                            + "\nActual = " + pr.waitingTime);
+                }
+
+                if (pr.turnaroundTime != expected.turnaroundTime) {
+                    failures.add("[Turnaround Time] does not match for " + pr.name
+                            + "\nExpected = " + expected.turnaroundTime
+                            + "\nActual = " + pr.turnaroundTime);
+                }
+            }
+        }
+
+        if (!failures.isEmpty()) {
+            out.println("[" + algorithm + "] : FAILED");
+            for (String f : failures) out.println(f);
+        } else {
+            out.println("[" + algorithm + "] : PASSED");
+        }
+
+        printResult(out, actual);
+        return failures.isEmpty();
+    }
+
+    static void printResult(PrintStream out, SchedulerResult r) {
+        if (r.executionOrder != null)
+            out.println("Execution Order: " + r.executionOrder);
+        if (r.processResults != null) {
+            out.println("Process Results:");
+            for (ProcessResult pr : r.processResults) {
+                out.println(pr.name + " | Waiting Time = " + pr.waitingTime
+                        + " | Turnaround Time = " + pr.turnaroundTime
+                        + (pr.quantumHistory != null ? " | Quantum History: " + pr.quantumHistory : ""));
+            }
+        }
+        out.println("Average Waiting Time = " + r.averageWaitingTime);
+        out.println("Average Turnaround Time = " + r.averageTurnaroundTime);
+    }
+}
+
+
+
+class AGTestRunner {
+
+    static int counter = 1;
+
+    public static void runAGTest(String path) throws Exception {
+
+        Gson gson = new Gson();
+        AGTestCase tcAG = gson.fromJson(Files.readString(Paths.get(path)), AGTestCase.class);
+
+        SchedulerResult ag = ResultCache.cached("AG", tcAG.input.toWorkload());
+
+        System.out.println("\n=== Running AG Test: " + counter++ + " ===");
+
+        TestRunner.report(System.out, "AG", ag,
+                tcAG.expectedOutput.executionOrder, tcAG.expectedOutput.processResults);
+
+        System.out.println("----------------------------------------------------");
+    }
+
+    public static void runMultipleAGTests(String[] paths) throws Exception {
+        for (String path : paths) {
+            runAGTest(path);
+        }
+    }
+}
+
+// ================================
+// Main
+// ================================
+public class CPUScheduler {
+    public static void main(String[] args) throws Exception {
+
+        if (args.length > 0) {
+            runCommand(args);
+            return;
+        }
+
+        // Run SJF / RR / Priority Tests
+        TestRunner.runTest( "test_cases/Other_Schedulers/test_1.json");
+        System.out.println("====================================================================");
+        TestRunner.runTest( "test_cases/Other_Schedulers/test_2.json");
+        System.out.println("====================================================================");
+        TestRunner.runTest( "test_cases/Other_Schedulers/test_3.json");
+        System.out.println("====================================================================");
+        TestRunner.runTest( "test_cases/Other_Schedulers/test_4.json");
+        System.out.println("====================================================================");
+        TestRunner.runTest( "test_cases/Other_Schedulers/test_5.json");
+        System.out.println("====================================================================");
+        TestRunner.runTest( "test_cases/Other_Schedulers/test_6.json");
+        System.out.println("====================================================================");
+
+        System.out.println("\n\t\t\t\t\t\tAG SCHEDULE TESTS");
+
+        // Run AG Scheduler separately
+        String[] agPaths = new String[] {
+                "test_cases/AG/AG_test1.json",
+                "test_cases/AG/AG_test2.json",
+                "test_cases/AG/AG_test3.json",
+                "test_cases/AG/AG_test4.json",
+                "test_cases/AG/AG_test5.json",
+                "test_cases/AG/AG_test6.json"
+        };
+
+        AGTestRunner.runMultipleAGTests(agPaths);
+
+        if (ResultCache.shared() != null) {
+            ResultCache.shared().printSummary(System.out);
+        }
+
+    }
+
+    static void runCommand(String[] args) throws Exception {
+        switch (args[0]) {
+            case "engines":
+                for (String name : SchedulerRegistry.names()) System.out.println(name);
+                break;
+
+            // run <engine[,engine...]> <workload.json> [--stream] [--timeline <prefix>] [--summary]
+            //     [--checkpoint <prefix> [--every <seconds>]]
+            case "run": {
+                if (args.length < 3) {
+                    usage();
+                    return;
+                }
+
+                String path = args[2];
+                boolean stream = false;
+                boolean summary = false;
+                String timelinePrefix = null;
+                String checkpointPrefix = null;
+                double every = 60;
+
+                for (int i = 3; i < args.length; i++) {
+                    if (args[i].equals("--stream")) {
+                        stream = true;
+                    } else if (args[i].equals("--summary")) {
+                        summary = true;
+                    } else if (args[i].equals("--timeline") && i + 1 < args.length) {
+                        timelinePrefix = args[++i];
+                    } else if (args[i].equals("--checkpoint") && i + 1 < args.length) {
+                        checkpointPrefix = args[++i];
+                    } else if (args[i].equals("--every") && i + 1 < args.length) {
+                        every = Double.parseDouble(args[++i]);
+                    }
+                }
+
+                if (checkpointPrefix != null && (stream || timelinePrefix != null)) {
+                    System.out.println("--checkpoint needs the whole workload and timeline in memory,"
+                            + " it cannot be combined with --stream or --timeline");
+                    return;
+                }
+
+                Workload workload = stream ? null : Workload.load(path);
+                RunOptions options = new RunOptions(timelinePrefix, summary);
+
+                for (String name : args[1].split(",")) {
+                    Scheduler engine = SchedulerRegistry.create(name);
+                    if (checkpointPrefix != null && !engine.checkpoints()) {
+                        System.out.println("\n" + name + " cannot be checkpointed, running it without");
+                    }
+
+                    long start = System.nanoTime();
+                    SchedulerResult result;
+                    if (checkpointPrefix != null && engine.checkpoints()) {
+                        workload.config.processResults = !summary;
+                        result = Checkpointer.run(engine, name, workload, Paths.get(path),
+                                checkpointFile(checkpointPrefix, name), every);
+                    } else if (stream && BinaryWorkload.isBinary(path)) {
+                        try (BinaryWorkload bin = BinaryWorkload.open(path)) {
+                            result = bin.sorted
+                                    ? run(engine, new ArrivalCursor(bin), bin.config, options, name)
+                                    : run(engine, ArrivalCursor.over(bin.toWorkload().table), bin.config, options, name);
+                        }
+                    } else if (stream) {
+                        try (WorkloadReader reader = WorkloadReader.open(path, engine.readsParameters())) {
+                            try {
+                                result = run(engine, new ArrivalCursor(reader), reader.config, options, name);
+                            } catch (IllegalStateException e) {
+                                if (reader.sorted) throw e;
+
+                                // As for an unsorted binary file, run this and the
+                                // remaining engines on the whole workload instead
+                                System.out.println("\n" + path + " is not sorted by arrival, it cannot be"
+                                        + " streamed; running on the whole workload in memory");
+                                stream = false;
+                                workload = Workload.load(path);
+                                result = run(engine, ArrivalCursor.over(workload.table), workload.config, options, name);
+                            }
+                        }
+                    } else {
+                        result = run(engine, ArrivalCursor.over(workload.table), workload.config, options, name);
+                    }
+                    report(name, System.nanoTime() - start, options, result);
+                }
+                break;
+            }
+
+            // generate <count> (<workload.json|workload.bin> | --run <engine[,engine...]>) [options]
+            case "generate": {
+                if (args.length < 3) {
+                    usage();
+                    return;
+                }
+
+                WorkloadSpec spec = new WorkloadSpec(Integer.parseInt(args[1]));
+                String out = null, engines = null, timelinePrefix = null;
+                boolean summary = false;
+
+                for (int i = 2; i < args.length; i++) {
+                    String option = args[i];
+                    if (option.equals("--summary")) {
+                        summary = true;
+                    } else if (!option.startsWith("--")) {
+                        out = option;
+                    } else if (i + 1 < args.length) {
+                        String value = args[++i];
+                        switch (option) {
+                            case "--run": engines = value; break;
+                            case "--timeline": timelinePrefix = value; break;
+                            case "--seed": spec.seed = Long.parseLong(value); break;
+                            case "--arrivals": spec.arrivals = value; break;
+                            case "--bursts": spec.bursts = value; break;
+                            case "--priority": spec.priority = value; break;
+                            case "--quantum": spec.quantum = value; break;
+                            case "--cs": spec.config.contextSwitch = Integer.parseInt(value); break;
+                            case "--rr": spec.config.rrQuantum = Integer.parseInt(value); break;
+                            case "--aging": spec.config.agingInterval = Integer.parseInt(value); break;
+                            default:
+                                usage();
+                                return;
+                        }
+                    }
+                }
+
+                if (out != null) {
+                    int written = WorkloadWriter.write(spec.generator(), spec.toString(), spec.config, Paths.get(out));
+                    System.out.println("Wrote " + written + " processes to " + out);
+                }
+
+                if (engines != null) {
+                    RunOptions options = new RunOptions(timelinePrefix, summary);
+
+                    // The generator is deterministic, every engine gets a fresh copy of the same workload
+                    for (String name : engines.split(",")) {
+                        Scheduler engine = SchedulerRegistry.create(name);
+                        WorkloadGenerator generator = spec.generator();
+
+                        long start = System.nanoTime();
+                        SchedulerResult result = run(engine, new ArrivalCursor(generator), generator.config, options, name);
+                        report(name, System.nanoTime() - start, options, result);
+                    }
+                }
+                break;
+            }
+
+            // sweep <workload> [--engines e1,e2] [--cs R] [--quantum R] [--aging R] [--ag-scale R]
+            //       [--threads N] [--out results.csv]
+            case "sweep": {
+                if (args.length < 2) {
+                    usage();
+                    return;
+                }
+
+                Workload workload = Workload.load(args[1]);
+                SweepGrid grid = new SweepGrid(workload.config);
+                List<String> engines = Arrays.asList("SJF", "RR", "Priority", "AG");
+                int threads = Runtime.getRuntime().availableProcessors();
+                String out = null;
+
+                for (int i = 2; i + 1 < args.length; i += 2) {
+                    String value = args[i + 1];
+                    switch (args[i]) {
+                        case "--engines": engines = Arrays.asList(value.split(",")); break;
+                        case "--cs": grid.contextSwitch = SweepGrid.ints(value); break;
+                        case "--quantum": grid.rrQuantum = SweepGrid.ints(value); break;
+                        case "--aging": grid.agingInterval = SweepGrid.ints(value); break;
+                        case "--ag-scale": grid.agQuantumScale = SweepGrid.doubles(value); break;
+                        case "--threads": threads = Integer.parseInt(value); break;
+                        case "--out": out = value; break;
+                        default:
+                            usage();
+                            return;
+                    }
+                }
+
+                long start = System.nanoTime();
+                List<SweepPoint> points = SweepRunner.run(workload, engines, grid, threads);
+                long elapsed = System.nanoTime() - start;
+
+                if (out != null) {
+                    SweepRunner.writeCsv(points, Paths.get(out));
+                    System.out.println("Wrote " + points.size() + " grid points to " + out);
+                } else {
+                    SweepRunner.printTable(points, System.out);
+                }
+                System.out.println("Elapsed: " + elapsed / 1_000_000 + " ms");
+                break;
+            }
+
+            // tune <workload> [--engine RR|AG] [--objective avg-waiting|p99-turnaround|switches]
+            //      [--range a..b] [--threads N]
+            case "tune": {
+                if (args.length < 2) {
+                    usage();
+                    return;
+                }
+
+                Workload workload = Workload.load(args[1]);
+                String engine = "RR";
+                TuningObjective objective = TuningObjective.AVG_WAITING;
+                String range = null;
+                int threads = Runtime.getRuntime().availableProcessors();
+
+                for (int i = 2; i + 1 < args.length; i += 2) {
+                    String value = args[i + 1];
+                    switch (args[i]) {
+                        case "--engine": engine = value; break;
+                        case "--objective": objective = TuningObjective.parse(value); break;
+                        case "--range": range = value; break;
+                        case "--threads": threads = Integer.parseInt(value); break;
+                        default:
+                            usage();
+                            return;
+                    }
+                }
+
+                QuantumTuner tuner = new QuantumTuner(engine, objective, workload);
+                double[] bounds = range != null
+                        ? SweepGrid.doubles(range)
+                        : tuner.tunesQuantum() ? new double[]{1, 64} : new double[]{0.25, 4};
+
+                long start = System.nanoTime();
+                TuningEvaluation best = tuner.tune(bounds[0], bounds[bounds.length - 1], threads, System.out);
+                long elapsed = System.nanoTime() - start;
+
+                System.out.println("\nBest " + tuner.parameterName() + " = " + tuner.format(best.parameter)
+                        + " (" + objective.label + " = " + tuner.formatScore(best.score) + ")");
+                System.out.println("Elapsed: " + elapsed / 1_000_000 + " ms");
+                break;
+            }
+
+            // resume <checkpoint> [--every <seconds>]
+            case "resume": {
+                if (args.length < 2) {
+                    usage();
+                    return;
+                }
+
+                Path file = Paths.get(args[1]);
+                double every = args.length > 3 && args[2].equals("--every") ? Double.parseDouble(args[3]) : 60;
+
+                Checkpoint checkpoint = Checkpoint.read(file);
+                Workload workload = checkpoint.loadWorkload();
+
+                long start = System.nanoTime();
+                SchedulerResult result = checkpoint.resume(workload, file, every);
+                report(checkpoint.engine, System.nanoTime() - start,
+                        new RunOptions(null, !checkpoint.config.processResults), result);
+                break;
+            }
+
+            // whatif <engine> <workload> [--edit "<question>"]... [--verify]
+            case "whatif": {
+                if (args.length < 3) {
+                    usage();
+                    return;
+                }
+
+                List<String> questions = new ArrayList<>();
+                boolean verify = false;
+                for (int i = 3; i < args.length; i++) {
+                    if (args[i].equals("--edit") && i + 1 < args.length) {
+                        questions.add(args[++i]);
+                    } else if (args[i].equals("--verify")) {
+                        verify = true;
+                    } else {
+                        usage();
+                        return;
+                    }
+                }
+
+                WhatIfBaseline baseline = WhatIfBaseline.record(args[1], Workload.load(args[2]));
+                System.out.println("Baseline: " + args[1] + " over " + baseline.workload.table.size
+                        + " processes in " + baseline.elapsedNanos / 1_000_000 + " ms, "
+                        + baseline.snapshots.size() + " snapshots (" + baseline.snapshotBytes / 1024 + " KiB)");
+                if (!baseline.resumes) {
+                    System.out.println(args[1] + " cannot resume from a snapshot, every question runs the whole workload");
+                }
+
+                if (questions.isEmpty()) {
+                    // One question per line until the end of input
+                    BufferedReader in = new BufferedReader(new InputStreamReader(System.in));
+                    for (String line; (line = in.readLine()) != null; ) {
+                        if (!line.isBlank()) whatIf(baseline, line, verify);
+                    }
+                } else {
+                    for (String question : questions) whatIf(baseline, question, verify);
+                }
+                break;
+            }
+
+            // serve [--port N | --unix <path>] [--engine <name>] [--cs N] [--rr N] [--aging N] [--sessions N]
+            case "serve": {
+                int port = SchedulerService.DEFAULT_PORT;
+                String unixPath = null;
+                String engine = "SJF";
+                SchedulerConfig config = new SchedulerConfig(1, 2, 5);
+                int maxSessions = 64;
+
+                for (int i = 1; i + 1 < args.length; i += 2) {
+                    String value = args[i + 1];
+                    switch (args[i]) {
+                        case "--port": port = Integer.parseInt(value); break;
+                        case "--unix": unixPath = value; break;
+                        case "--engine": engine = value; break;
+                        case "--cs": config.contextSwitch = Integer.parseInt(value); break;
+                        case "--rr": config.rrQuantum = Integer.parseInt(value); break;
+                        case "--aging": config.agingInterval = Integer.parseInt(value); break;
+                        case "--sessions": maxSessions = Integer.parseInt(value); break;
+                        default:
+                            usage();
+                            return;
+                    }
+                }
+
+                SchedulerService service = unixPath != null
+                        ? SchedulerService.unix(Paths.get(unixPath), engine, config, maxSessions)
+                        : SchedulerService.tcp(port, engine, config, maxSessions);
+                Runtime.getRuntime().addShutdownHook(new Thread(service::close));
+                System.out.println("Serving " + engine + " on " + service.address()
+                        + " (context switch " + config.contextSwitch + ", RR quantum " + config.rrQuantum
+                        + ", aging interval " + config.agingInterval + ")");
+                service.serve();
+                break;
+            }
+
+            // convert <workload.json> <workload.bin>
+            case "convert":
+                if (args.length < 3) {
+                    usage();
+                    return;
+                }
+                BinaryWorkloadWriter.convert(Paths.get(args[1]), Paths.get(args[2]));
+                break;
+
+            // suite [dir] [--threads N] [--reference]
+            case "suite": {
+                String dir = "test_cases";
+                int threads = Runtime.getRuntime().availableProcessors();
+                boolean reference = false;
+
+                for (int i = 1; i < args.length; i++) {
+                    if (args[i].equals("--threads") && i + 1 < args.length) {
+                        threads = Integer.parseInt(args[++i]);
+                    } else if (args[i].equals("--reference")) {
+                        reference = true;
+                    } else {
+                        dir = args[i];
+                    }
+                }
+
+                if (!SuiteRunner.run(Paths.get(dir), threads, reference)) {
+                    System.exit(1);
+                }
+                break;
+            }
+
+            // verify [--cases N] [--seed N] [--threads N]
+            case "verify": {
+                int cases = 2000;
+                long seed = 1;
+                int threads = Runtime.getRuntime().availableProcessors();
+
+                for (int i = 1; i + 1 < args.length; i += 2) {
+                    String value = args[i + 1];
+                    switch (args[i]) {
+                        case "--cases": cases = Integer.parseInt(value); break;
+                        case "--seed": seed = Long.parseLong(value); break;
+                        case "--threads": threads = Integer.parseInt(value); break;
+                        default:
+                            usage();
+                            return;
+                    }
+                }
+
+                if (!VerifyRunner.run(cases, seed, threads)) {
+                    System.exit(1);
+                }
+                break;
+            }
+
+            // cache <dir> [--clear]
+            case "cache": {
+                if (args.length < 2) {
+                    usage();
+                    return;
+                }
+
+                ResultCache cache = ResultCache.open(Paths.get(args[1]), ResultCache.DEFAULT_MAX_BYTES);
+                if (args.length > 2 && args[2].equals("--clear")) {
+                    cache.clear();
+                }
+                System.out.println(cache.dir + ": " + cache.count() + " entries of " + cache.capacity()
+                        + ", " + cache.totalBytes() / 1024 + " KiB");
+                break;
+            }
+
+            default:
+                usage();
+        }
+    }
+
+    static void whatIf(WhatIfBaseline baseline, String question, boolean verify) {
+        System.out.println();
+
+        WhatIfReplay replay;
+        try {
+            replay = new WhatIfReplay(baseline,
+                    ProcessEdit.parse(baseline.workload.table, baseline.rowsByName(), question));
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        ProcessOutcomes outcomes = replay.run();
+        replay.print(System.out, 10);
+
+        if (verify) {
+            long start = System.nanoTime();
+            ProcessOutcomes full = replay.fullRun();
+            long elapsed = System.nanoTime() - start;
+
+            int mismatches = 0;
+            for (int row = 0; row < full.waiting.length; row++) {
+                if (full.differs(outcomes, row)) mismatches++;
+            }
+            System.out.println(mismatches == 0
+                    ? "  Same outcome for every process as a full run (" + elapsed / 1_000_000 + " ms)"
+                    : "  MISMATCH: " + mismatches + " processes differ from a full run");
+        }
+    }
+
+    // Output choices of the run command
+    static class RunOptions {
+        final String timelinePrefix;
+        final boolean summary;
+
+        RunOptions(String timelinePrefix, boolean summary) {
+            this.timelinePrefix = timelinePrefix;
+            this.summary = summary;
+        }
+    }
+
+    // Run an engine, streaming its timeline to <prefix>.<engine>.csv if a prefix is given
+    static SchedulerResult run(Scheduler engine, ArrivalCursor arrivals, SchedulerConfig config,
+                               RunOptions options, String name) throws Exception {
+        config.processResults = !options.summary;
+
+        if (options.timelinePrefix == null)
+            return engine.run(arrivals, config);
+
+        try (FileTimelineSink sink = new FileTimelineSink(timelineFile(options.timelinePrefix, name), arrivals.table)) {
+            return engine.run(arrivals, config, sink);
+        }
+    }
+
+    static void report(String name, long elapsedNanos, RunOptions options, SchedulerResult result) {
+        System.out.println("\n=== " + name + " (" + elapsedNanos / 1000 + " us) ===");
+        if (options.timelinePrefix != null) {
+            System.out.println("Timeline: " + timelineFile(options.timelinePrefix, name));
+        }
+        TestRunner.printResult(System.out, result);
+        result.statistics.print(System.out);
+    }
+
+    static Path timelineFile(String prefix, String engine) {
+        return Paths.get(prefix + "." + engine + ".csv");
+    }
+
+    static Path checkpointFile(String prefix, String engine) {
+        return Paths.get(prefix + "." + engine + ".ckpt");
+    }
+
+    static void usage() {
+        System.out.println("Usage:");
+        System.out.println("  CPUScheduler                                  run the bundled test cases");
+        System.out.println("  CPUScheduler engines                          list the available engines");
+        System.out.println("  CPUScheduler run <engine[,engine...]> <file> [--stream] [--timeline <prefix>] [--summary]");
+        System.out.println("                                                run engines on a workload file, --stream parses");
+        System.out.println("                                                processes while simulating (unsorted files are read");
+        System.out.println("                                                whole, as without --stream),");
+        System.out.println("                                                files ending in .bin are read as binary workloads,");
+        System.out.println("                                                --timeline writes each engine's CPU segments to");
+        System.out.println("                                                <prefix>.<engine>.csv instead of listing the order,");
+        System.out.println("                                                --summary reports statistics without per-process results");
+        System.out.println("                 [--checkpoint <prefix> [--every <seconds>]]");
+        System.out.println("                                                --checkpoint snapshots each engine's run to");
+        System.out.println("                                                <prefix>.<engine>.ckpt every 60 seconds or as given,");
+        System.out.println("                                                the file is removed once the run completes");
+        System.out.println("  CPUScheduler resume <file.ckpt> [--every <seconds>]");
+        System.out.println("                                                continue a checkpointed run on the workload it was");
+        System.out.println("                                                taken from, checkpointing to the same file");
+        System.out.println("  CPUScheduler whatif <engine> <file> [--edit \"<name> arrival=N burst=N ...\"]... [--verify]");
+        System.out.println("                                                answer what-if questions against one baseline run,");
+        System.out.println("                                                replaying only from the last snapshot before the");
+        System.out.println("                                                edit; without --edit, one question per line on stdin,");
+        System.out.println("                                                fields arrival, burst, priority, quantum, processes");
+        System.out.println("                                                separated by ';', --verify compares with a full run");
+        System.out.println("  CPUScheduler serve [--port N | --unix <path>] [--engine <name>] [--cs N] [--rr N] [--aging N]");
+        System.out.println("                 [--sessions N]");
+        System.out.println("                                                drive engines live over localhost TCP (port 7070");
+        System.out.println("                                                by default) or a Unix domain socket, one run per");
+        System.out.println("                                                connection, in newline-delimited JSON: arrivals in,");
+        System.out.println("                                                dispatch / preempt / complete decisions out");
+        System.out.println("  CPUScheduler suite [dir] [--threads N] [--reference]");
+        System.out.println("                                                run every test case under dir in parallel, with the");
+        System.out.println("                                                <algorithm>-Reference engines if --reference is given");
+        System.out.println("  CPUScheduler verify [--cases N] [--seed N] [--threads N]");
+        System.out.println("                                                check every engine on seeded random workloads against");
+        System.out.println("                                                the original tick-by-tick engines, streamed and");
+        System.out.println("                                                parallel runs, its timeline and its percentiles");
+        System.out.println("  CPUScheduler convert <file.json> <file.bin>   convert a workload to the binary format");
+        System.out.println("  CPUScheduler cache <dir> [--clear]            show or empty a result cache; the test runners and");
+        System.out.println("                                                suite use one if -Dcpuschedulers.cache=<dir> is set");
+        System.out.println("  CPUScheduler sweep <file> [--engines e1,e2] [--cs R] [--quantum R] [--aging R] [--ag-scale R]");
+        System.out.println("                 [--threads N] [--out results.csv]");
+        System.out.println("                                                run every engine over a grid of parameters in parallel;");
+        System.out.println("                                                R is a..b, a..b:step or a,b,c, --ag-scale multiplies");
+        System.out.println("                                                every AG quantum, unswept parameters come from the file");
+        System.out.println("  CPUScheduler tune <file> [--engine RR|AG] [--objective avg-waiting|p99-turnaround|switches]");
+        System.out.println("                 [--range a..b] [--threads N]");
+        System.out.println("                                                search the RR quantum or AG quantum scale that");
+        System.out.println("                                                minimises the objective, coarse to fine, abandoning");
+        System.out.println("                                                candidates that can no longer beat the best");
+        System.out.println("  CPUScheduler generate <count> (<file> | --run <engine[,engine...]>) [--seed N]");
+        System.out.println("                 [--arrivals poisson:gap | mmpp:calmGap:burstGap:calm:burst | periodic:period[:jitter]]");
+        System.out.println("                 [--bursts <dist>] [--priority <dist>] [--quantum <dist>] [--cs N] [--rr N] [--aging N]");
+        System.out.println("                 [--timeline <prefix>] [--summary]");
+        System.out.println("                                                generate a seeded synthetic workload into a .json or .bin");
+        System.out.println("                                                file or straight into engines; <dist> is const:v,");
+        System.out.println("                                                uniform:lo:hi, exp:mean, pareto:alpha:min[:max] or");
+        System.out.println("                                                bimodal:short:long:p");
+    }
+}
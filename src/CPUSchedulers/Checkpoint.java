@@ -0,0 +1,531 @@
+package CPUSchedulers;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+import java.util.zip.*;
+import java.io.*;
+import java.nio.*;
+import java.nio.file.*;
+
+// ================================
+// Checkpoints
+// ================================
+//
+// Snapshot file layout, big-endian:
+//
+//   int  magic            'CPUK'
+//   int  version
+//   then deflated:
+//     UTF  engine, UTF workload path, int keyLength + key (as the result cache computes it)
+//     int  contextSwitch, rrQuantum, agingInterval, processResults (0 or 1)
+//     int  rows consumed from the arrival cursor
+//     run state, timeline so far, engine state
+//
+// Arrays are written as an int length followed by the elements. What a section holds
+// is up to the class that saves it; it is read back in the same order.
+
+// Takes snapshots of a run. Engines that can resume ask at the top of their main loop,
+// where the state of the run is complete, and hand their own state to save() when a
+// snapshot is due; the run state and arrival cursor are up to the implementation.
+interface RunSnapshots {
+    boolean due(int time);
+
+    void save(int time, Consumer<SnapshotWriter> engineState);
+}
+
+// Collects a snapshot on the simulating thread. Arrays are copied as they are put, so
+// the run can go on while the copy is encoded and written in the background.
+//
+// A full snapshot, as a checkpoint takes, keeps per-row state for every row of the
+// table. A partial one keeps it only for the given rows, the others are taken to hold
+// their initial values, and leaves out what is only read to report results or count
+// the work done; see WhatIfBaseline.
+class SnapshotWriter {
+
+    private final List<Object> items = new ArrayList<>();
+
+    // Rows of the table, and the rows kept by a partial snapshot in ascending order
+    private final int tableSize;
+    private final int[] rows;
+
+    SnapshotWriter(int tableSize) {
+        this.tableSize = tableSize;
+        this.rows = null;
+    }
+
+    private SnapshotWriter(int tableSize, int[] rows) {
+        this.tableSize = tableSize;
+        this.rows = rows;
+        items.add(rows);
+    }
+
+    static SnapshotWriter partial(int tableSize, int[] rows) {
+        return new SnapshotWriter(tableSize, rows);
+    }
+
+    // Whether state only read to report results, or to count the work done, is kept
+    boolean keepsResults() {
+        return rows == null;
+    }
+
+    void putInt(int v) {
+        items.add(v);
+    }
+
+    void putLong(long v) {
+        items.add(v);
+    }
+
+    void putString(String v) {
+        items.add(v);
+    }
+
+    // The first n elements
+    void putInts(int[] a, int n) {
+        items.add(Arrays.copyOf(a, n));
+    }
+
+    void putLongs(long[] a) {
+        items.add(a.clone());
+    }
+
+    // The first n elements
+    void putBytes(byte[] a, int n) {
+        items.add(Arrays.copyOf(a, n));
+    }
+
+    // Per-row state indexed by row, which may be shorter than the table for an engine
+    // that grows it as rows arrive
+    void putColumn(int[] column) {
+        if (rows == null) {
+            items.add(Arrays.copyOf(column, Math.min(column.length, tableSize)));
+            return;
+        }
+
+        int[] values = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            if (rows[i] < column.length) values[i] = column[rows[i]];
+        }
+        items.add(values);
+    }
+
+    // Encoded in one go, as writeTo would, into an array of the exact size
+    byte[] toBytes() {
+        int size = 0;
+        for (Object item : items) {
+            if (item instanceof Integer) size += 4;
+            else if (item instanceof Long) size += 8;
+            else if (item instanceof String) size += utf((String) item).length;
+            else if (item instanceof int[]) size += 4 + ((int[]) item).length * 4;
+            else if (item instanceof long[]) size += 4 + ((long[]) item).length * 8;
+            else size += 4 + ((byte[]) item).length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (Object item : items) {
+            if (item instanceof Integer) {
+                buffer.putInt((Integer) item);
+            } else if (item instanceof Long) {
+                buffer.putLong((Long) item);
+            } else if (item instanceof String) {
+                buffer.put(utf((String) item));
+            } else if (item instanceof int[]) {
+                int[] a = (int[]) item;
+                buffer.putInt(a.length);
+                buffer.asIntBuffer().put(a);
+                buffer.position(buffer.position() + a.length * 4);
+            } else if (item instanceof long[]) {
+                long[] a = (long[]) item;
+                buffer.putInt(a.length);
+                buffer.asLongBuffer().put(a);
+                buffer.position(buffer.position() + a.length * 8);
+            } else {
+                byte[] a = (byte[]) item;
+                buffer.putInt(a.length);
+                buffer.put(a);
+            }
+        }
+        return buffer.array();
+    }
+
+    private static byte[] utf(String s) {
+        ByteArrayOutputStream utf = new ByteArrayOutputStream();
+        try {
+            new DataOutputStream(utf).writeUTF(s);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return utf.toByteArray();
+    }
+
+    // Encoded through one buffer, arrays a chunk at a time
+    void writeTo(OutputStream out) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        ByteArrayOutputStream utf = new ByteArrayOutputStream();
+
+        for (Object item : items) {
+            if (item instanceof Integer) {
+                room(buffer, out, 4).putInt((Integer) item);
+            } else if (item instanceof Long) {
+                room(buffer, out, 8).putLong((Long) item);
+            } else if (item instanceof String) {
+                utf.reset();
+                new DataOutputStream(utf).writeUTF((String) item);
+                put(buffer, out, utf.toByteArray());
+            } else if (item instanceof int[]) {
+                int[] a = (int[]) item;
+                room(buffer, out, 4).putInt(a.length);
+                for (int off = 0; off < a.length; ) {
+                    int n = Math.min(room(buffer, out, 4).remaining() / 4, a.length - off);
+                    buffer.asIntBuffer().put(a, off, n);
+                    buffer.position(buffer.position() + n * 4);
+                    off += n;
+                }
+            } else if (item instanceof long[]) {
+                long[] a = (long[]) item;
+                room(buffer, out, 4).putInt(a.length);
+                for (int off = 0; off < a.length; ) {
+                    int n = Math.min(room(buffer, out, 8).remaining() / 8, a.length - off);
+                    buffer.asLongBuffer().put(a, off, n);
+                    buffer.position(buffer.position() + n * 8);
+                    off += n;
+                }
+            } else {
+                byte[] a = (byte[]) item;
+                room(buffer, out, 4).putInt(a.length);
+                put(buffer, out, a);
+            }
+        }
+        flush(buffer, out);
+    }
+
+    private static ByteBuffer room(ByteBuffer buffer, OutputStream out, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) flush(buffer, out);
+        return buffer;
+    }
+
+    private static void put(ByteBuffer buffer, OutputStream out, byte[] bytes) throws IOException {
+        for (int off = 0; off < bytes.length; ) {
+            int n = Math.min(room(buffer, out, 1).remaining(), bytes.length - off);
+            buffer.put(bytes, off, n);
+            off += n;
+        }
+    }
+
+    private static void flush(ByteBuffer buffer, OutputStream out) throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+}
+
+// Reads a snapshot back from memory, the file is inflated when it is opened
+class SnapshotReader {
+
+    private final ByteBuffer buffer;
+
+    // Rows kept by a partial snapshot, null for a full one
+    private final int[] rows;
+
+    SnapshotReader(byte[] bytes) {
+        this(bytes, false);
+    }
+
+    private SnapshotReader(byte[] bytes, boolean partial) {
+        buffer = ByteBuffer.wrap(bytes);
+        rows = partial ? getInts() : null;
+    }
+
+    static SnapshotReader partial(byte[] bytes) {
+        return new SnapshotReader(bytes, true);
+    }
+
+    boolean keepsResults() {
+        return rows == null;
+    }
+
+    // Rows kept by a partial snapshot
+    int[] rows() {
+        return rows;
+    }
+
+    int getInt() {
+        return buffer.getInt();
+    }
+
+    long getLong() {
+        return buffer.getLong();
+    }
+
+    String getString() {
+        int length = buffer.getShort() & 0xFFFF;
+        byte[] utf = new byte[length + 2];
+        utf[0] = (byte) (length >> 8);
+        utf[1] = (byte) length;
+        buffer.get(utf, 2, length);
+        try {
+            return new DataInputStream(new ByteArrayInputStream(utf)).readUTF();
+        } catch (IOException e) {
+            throw new IllegalStateException("Damaged string in checkpoint", e);
+        }
+    }
+
+    int[] getInts() {
+        int[] a = new int[buffer.getInt()];
+        buffer.asIntBuffer().get(a);
+        buffer.position(buffer.position() + a.length * 4);
+        return a;
+    }
+
+    long[] getLongs() {
+        long[] a = new long[buffer.getInt()];
+        buffer.asLongBuffer().get(a);
+        buffer.position(buffer.position() + a.length * 8);
+        return a;
+    }
+
+    byte[] getBytes() {
+        byte[] a = new byte[buffer.getInt()];
+        buffer.get(a);
+        return a;
+    }
+
+    // Into a column of a fresh run, grown if the saved rows need it; returns the column
+    int[] getColumn(int[] column) {
+        int[] values = getInts();
+        if (rows == null) {
+            if (values.length > column.length) column = Arrays.copyOf(column, values.length);
+            System.arraycopy(values, 0, column, 0, values.length);
+            return column;
+        }
+
+        if (rows.length > 0 && rows[rows.length - 1] >= column.length) {
+            column = Arrays.copyOf(column, rows[rows.length - 1] + 1);
+        }
+        for (int i = 0; i < rows.length; i++) column[rows[i]] = values[i];
+        return column;
+    }
+}
+
+// Snapshots a run every so often while it is simulated. The engine polls due() at the
+// top of its main loop, where its state is complete, and hands its own state to save()
+// when a snapshot is due; the run state, arrival cursor and timeline are added here.
+// One snapshot is written at a time, to a temporary file moved over the checkpoint, so
+// the file always holds a whole snapshot. A snapshot that falls due while the previous
+// one is still being written is skipped.
+//
+// Only runs over a whole table in memory can be checkpointed, with the timeline kept
+// in memory.
+class Checkpointer implements RunSnapshots {
+
+    static final int MAGIC = 0x4350554B;
+    static final int VERSION = 2;
+
+    // Loop iterations between two looks at the clock
+    private static final int POLL_EVERY = 1024;
+
+    private static final ExecutorService WRITER = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "scheduler-checkpoints");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    final Path file;
+    final long intervalNanos;
+
+    private final String engine;
+    private final Path workloadPath;
+    private final byte[] workloadKey;
+    private final SchedulerConfig config;
+    private final ArrivalCursor arrivals;
+    private final RunLengthTimeline timeline;
+
+    private int polls;
+    private long nextAt;
+    private volatile Future<?> pending;
+
+    int written;
+
+    Checkpointer(Path file, double intervalSeconds, String engine, Path workloadPath, Workload workload,
+                 ArrivalCursor arrivals, RunLengthTimeline timeline) {
+        this.file = file;
+        this.intervalNanos = (long) (intervalSeconds * 1e9);
+        this.engine = engine;
+        this.workloadPath = workloadPath.toAbsolutePath();
+        this.workloadKey = ResultCache.key(engine, workload);
+        this.config = workload.config;
+        this.arrivals = arrivals;
+        this.timeline = timeline;
+        this.nextAt = System.nanoTime() + intervalNanos;
+    }
+
+    public boolean due(int time) {
+        if (++polls < POLL_EVERY)
+            return false;
+        polls = 0;
+
+        Future<?> last = pending;
+        return (last == null || last.isDone()) && System.nanoTime() >= nextAt;
+    }
+
+    // Capture the run now, with the engine's state appended by engineState
+    public void save(int time, Consumer<SnapshotWriter> engineState) {
+        SnapshotWriter out = new SnapshotWriter(arrivals.table.size);
+        out.putString(engine);
+        out.putString(workloadPath.toString());
+        out.putBytes(workloadKey, workloadKey.length);
+        out.putInt(config.contextSwitch);
+        out.putInt(config.rrQuantum);
+        out.putInt(config.agingInterval);
+        out.putInt(config.processResults ? 1 : 0);
+        out.putInt(arrivals.consumed());
+        arrivals.state.save(out);
+        timeline.save(out);
+        engineState.accept(out);
+
+        pending = WRITER.submit(() -> {
+            try {
+                write(out);
+                written++;
+            } catch (IOException e) {
+                System.err.println("Checkpoint to " + file + " failed: " + e);
+            }
+        });
+        nextAt = System.nanoTime() + intervalNanos;
+    }
+
+    private void write(SnapshotWriter snapshot) throws IOException {
+        Path tmp = tempFile();
+        try {
+            try (OutputStream raw = Files.newOutputStream(tmp)) {
+                DataOutputStream header = new DataOutputStream(raw);
+                header.writeInt(MAGIC);
+                header.writeInt(VERSION);
+
+                Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+                try {
+                    DeflaterOutputStream out = new DeflaterOutputStream(raw, deflater, 1 << 16);
+                    snapshot.writeTo(out);
+                    out.finish();
+                } finally {
+                    deflater.end();
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // Wait for a snapshot still being written
+    void awaitWrite() throws InterruptedException {
+        Future<?> last = pending;
+        if (last != null) {
+            try {
+                last.get();
+            } catch (ExecutionException e) {
+                // Reported by the writer
+            }
+        }
+    }
+
+    // The run is over, remove the checkpoint, which has nothing left to resume
+    void finish() throws IOException, InterruptedException {
+        awaitWrite();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(tempFile());
+    }
+
+    // Overwritten by every snapshot, left behind by a run killed while writing one
+    private Path tempFile() {
+        return file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    // Run an engine over a workload with checkpoints to file
+    static SchedulerResult run(Scheduler engine, String name, Workload workload, Path workloadPath,
+                               Path file, double intervalSeconds) throws Exception {
+        ArrivalCursor arrivals = ArrivalCursor.over(workload.table);
+        RunLengthTimeline timeline = new RunLengthTimeline(arrivals.table);
+        Checkpointer checkpointer = new Checkpointer(file, intervalSeconds, name, workloadPath, workload,
+                arrivals, timeline);
+        arrivals.state.snapshots = checkpointer;
+
+        SchedulerResult result = engine.run(arrivals, workload.config, timeline);
+        checkpointer.finish();
+        return withTimeline(engine, result, timeline);
+    }
+
+    static SchedulerResult withTimeline(Scheduler engine, SchedulerResult result, RunLengthTimeline timeline) {
+        result.timeline = timeline;
+        result.executionOrder = timeline.executionOrder(engine.listsEveryDispatch());
+        return result;
+    }
+}
+
+// A checkpoint read back from disk, ready to resume
+class Checkpoint {
+
+    final String engine;
+    final Path workloadPath;
+    final SchedulerConfig config;
+
+    private final byte[] workloadKey;
+    private final int consumed;
+    private final SnapshotReader in;
+
+    private Checkpoint(SnapshotReader in) {
+        this.in = in;
+        engine = in.getString();
+        workloadPath = Paths.get(in.getString());
+        workloadKey = in.getBytes();
+        config = new SchedulerConfig(in.getInt(), in.getInt(), in.getInt());
+        config.processResults = in.getInt() != 0;
+        consumed = in.getInt();
+    }
+
+    static Checkpoint read(Path file) throws IOException {
+        try (DataInputStream raw = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (raw.readInt() != Checkpointer.MAGIC || raw.readInt() != Checkpointer.VERSION) {
+                throw new IOException(file + " is not a checkpoint of this version");
+            }
+            try (InflaterInputStream inflated = new InflaterInputStream(raw)) {
+                return new Checkpoint(new SnapshotReader(inflated.readAllBytes()));
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException(file + " is truncated", e);
+        }
+    }
+
+    // Load the workload the checkpoint was taken on, from the path it was read from
+    Workload loadWorkload() throws Exception {
+        Workload loaded = Workload.load(workloadPath.toString());
+        Workload workload = new Workload(loaded.table, config);
+        if (!Arrays.equals(ResultCache.key(engine, workload), workloadKey)) {
+            throw new IllegalStateException(workloadPath + " has changed since the checkpoint was taken");
+        }
+        return workload;
+    }
+
+    // Continue the run where the checkpoint left it. If file is given the resumed run
+    // checkpoints there in turn.
+    SchedulerResult resume(Workload workload, Path file, double intervalSeconds) throws Exception {
+        Scheduler scheduler = SchedulerRegistry.create(engine);
+
+        ArrivalCursor arrivals = ArrivalCursor.over(workload.table);
+        arrivals.skip(consumed);
+        arrivals.state.restore(in);
+
+        RunLengthTimeline timeline = new RunLengthTimeline(arrivals.table);
+        timeline.restore(in);
+
+        Checkpointer checkpointer = null;
+        if (file != null) {
+            checkpointer = new Checkpointer(file, intervalSeconds, engine, workloadPath, workload, arrivals, timeline);
+            arrivals.state.snapshots = checkpointer;
+        }
+
+        SchedulerResult result = scheduler.resume(arrivals, config, timeline, in);
+        if (checkpointer != null) checkpointer.finish();
+        return Checkpointer.withTimeline(scheduler, result, timeline);
+    }
+}
@@ -0,0 +1,352 @@
+package CPUSchedulers;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.lang.management.ManagementFactory;
+import javax.management.*;
+import jdk.jfr.*;
+
+// ================================
+// Instrumentation
+// ================================
+
+// JFR events for scheduling decisions, in simulated time. They are off unless a
+// recording enables them, e.g. java -XX:StartFlightRecording:settings=<file.jfc> with
+// <event name="CPUSchedulers.Dispatch"><setting name="enabled">true</setting></event>.
+// Whether they are enabled is checked once per run (and per ready queue for aging),
+// so a disabled event costs nothing per decision.
+
+@Name("CPUSchedulers.Run")
+@Label("Scheduler Run")
+@Category("CPU Scheduler")
+@StackTrace(false)
+class SchedulerRunEvent extends Event {
+    @Label("Engine") String engine;
+    @Label("Processes") int processes;
+    @Label("Events Processed") long events;
+    @Label("Ticks Simulated") long ticks;
+}
+
+@Name("CPUSchedulers.Dispatch")
+@Label("Dispatch")
+@Category("CPU Scheduler")
+@StackTrace(false)
+class DispatchEvent extends Event {
+    @Label("Engine") String engine;
+    @Label("Process") String process;
+    @Label("Time") int time;
+}
+
+@Name("CPUSchedulers.Preempt")
+@Label("Preempt")
+@Category("CPU Scheduler")
+@StackTrace(false)
+class PreemptEvent extends Event {
+    @Label("Engine") String engine;
+    @Label("Process") String process;
+    @Label("Time") int time;
+    @Label("Reason") String reason;
+}
+
+@Name("CPUSchedulers.Complete")
+@Label("Complete")
+@Category("CPU Scheduler")
+@StackTrace(false)
+class CompleteEvent extends Event {
+    @Label("Engine") String engine;
+    @Label("Process") String process;
+    @Label("Time") int time;
+}
+
+@Name("CPUSchedulers.Aging")
+@Label("Aging Step")
+@Category("CPU Scheduler")
+@StackTrace(false)
+class AgingEvent extends Event {
+    @Label("Process") String process;
+    @Label("Time") int time;
+    @Label("New Priority") int priority;
+}
+
+// Checks whether events are enabled. Loading an event class starts up JFR, which takes
+// longer than a small simulation, so nothing is loaded unless a recorder is running.
+final class SchedulerEvents {
+
+    static boolean recording() {
+        return FlightRecorder.isInitialized();
+    }
+
+    static boolean segments() {
+        return recording() && (new DispatchEvent().isEnabled() || new PreemptEvent().isEnabled()
+                || new CompleteEvent().isEnabled());
+    }
+
+    static boolean aging() {
+        return recording() && new AgingEvent().isEnabled();
+    }
+}
+
+// Work done by the engine in one run, kept in plain fields of the run's state and
+// added to the engine's metrics once the run ends
+class RunCounters {
+    // Iterations of the engine's main loop, each one a scheduling decision
+    long events;
+
+    // Lookups of the ready queue (polls and peeks) and the queue length summed over them
+    long readyQueueLookups;
+    long readyQueueLength;
+
+    long contextSwitches;
+    long agingSteps;
+
+    void lookup(int queueLength) {
+        readyQueueLookups++;
+        readyQueueLength += queueLength;
+    }
+
+    void save(SnapshotWriter out) {
+        out.putLongs(new long[]{events, readyQueueLookups, readyQueueLength, contextSwitches, agingSteps});
+    }
+
+    void restore(SnapshotReader in) {
+        long[] c = in.getLongs();
+        events = c[0];
+        readyQueueLookups = c[1];
+        readyQueueLength = c[2];
+        contextSwitches = c[3];
+        agingSteps = c[4];
+    }
+}
+
+// Counts the segments of a run by how they ended, passes them on and, if the events are
+// enabled, reports them to JFR as a dispatch followed by a preemption or completion
+class InstrumentedTimeline implements TimelineSink {
+
+    private final TimelineSink delegate;
+    private final String engine;
+    private final ProcessTable table;
+    private final boolean events;
+
+    final long[] segments = new long[SegmentEnd.values().length];
+    int firstStart = -1;
+    int lastEnd;
+
+    InstrumentedTimeline(TimelineSink delegate, String engine, ProcessTable table) {
+        this.delegate = delegate;
+        this.engine = engine;
+        this.table = table;
+        this.events = SchedulerEvents.segments();
+    }
+
+    public void segment(int row, int start, int end, SegmentEnd reason) {
+        segments[reason.ordinal()]++;
+        if (firstStart < 0) firstStart = start;
+        lastEnd = end;
+
+        if (events) report(row, start, end, reason);
+        delegate.segment(row, start, end, reason);
+    }
+
+    private void report(int row, int start, int end, SegmentEnd reason) {
+        DispatchEvent dispatch = new DispatchEvent();
+        if (dispatch.shouldCommit()) {
+            dispatch.engine = engine;
+            dispatch.process = table.name(row);
+            dispatch.time = start;
+            dispatch.commit();
+        }
+
+        if (reason == SegmentEnd.COMPLETED) {
+            CompleteEvent complete = new CompleteEvent();
+            if (complete.shouldCommit()) {
+                complete.engine = engine;
+                complete.process = table.name(row);
+                complete.time = end;
+                complete.commit();
+            }
+        } else {
+            PreemptEvent preempt = new PreemptEvent();
+            if (preempt.shouldCommit()) {
+                preempt.engine = engine;
+                preempt.process = table.name(row);
+                preempt.time = end;
+                preempt.reason = reason.name();
+                preempt.commit();
+            }
+        }
+    }
+}
+
+// Live counters of one engine, summed over all its runs, exposed over JMX as
+// CPUSchedulers:type=SchedulerMetrics,engine=<name>. Runs add to them once, when they
+// end, so the only per-run cost is a few atomic adds.
+class SchedulerMetrics implements SchedulerMetricsMBean {
+
+    private static final ConcurrentMap<String, SchedulerMetrics> ENGINES = new ConcurrentHashMap<>();
+
+    // Starting the platform MBean server takes about as long as starting JFR, so
+    // registration happens off the caller's thread
+    private static final Executor REGISTRATION = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "scheduler-metrics-jmx");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder cancelledRuns = new LongAdder();
+    private final AtomicLong activeRuns = new AtomicLong();
+    private final LongAdder wallNanos = new LongAdder();
+    private final LongAdder processes = new LongAdder();
+    private final LongAdder events = new LongAdder();
+    private final LongAdder ticks = new LongAdder();
+    private final LongAdder readyQueueLookups = new LongAdder();
+    private final LongAdder readyQueueLength = new LongAdder();
+    private final LongAdder contextSwitches = new LongAdder();
+    private final LongAdder agingSteps = new LongAdder();
+    private final LongAdder[] segments = new LongAdder[SegmentEnd.values().length];
+
+    SchedulerMetrics() {
+        for (int i = 0; i < segments.length; i++) segments[i] = new LongAdder();
+    }
+
+    // Metrics of an engine, registered with the platform MBean server on first use.
+    // If registration fails the counters are still kept.
+    static SchedulerMetrics of(String engine) {
+        return ENGINES.computeIfAbsent(engine, name -> {
+            SchedulerMetrics metrics = new SchedulerMetrics();
+            REGISTRATION.execute(() -> {
+                try {
+                    ManagementFactory.getPlatformMBeanServer().registerMBean(metrics,
+                            new ObjectName("CPUSchedulers:type=SchedulerMetrics,engine=" + name));
+                } catch (JMException | SecurityException e) {
+                    // Not visible over JMX, still counted
+                }
+            });
+            return metrics;
+        });
+    }
+
+    void started() {
+        activeRuns.incrementAndGet();
+    }
+
+    void finished(RunState state, InstrumentedTimeline timeline, long elapsedNanos, boolean cancelled) {
+        activeRuns.decrementAndGet();
+        runs.increment();
+        if (cancelled) cancelledRuns.increment();
+
+        RunCounters c = state.counters;
+        wallNanos.add(elapsedNanos);
+        processes.add(state.statistics.waiting.count());
+        events.add(c.events);
+        if (timeline.firstStart >= 0) ticks.add(timeline.lastEnd - timeline.firstStart);
+        readyQueueLookups.add(c.readyQueueLookups);
+        readyQueueLength.add(c.readyQueueLength);
+        contextSwitches.add(c.contextSwitches);
+        agingSteps.add(c.agingSteps);
+        for (int i = 0; i < segments.length; i++) segments[i].add(timeline.segments[i]);
+    }
+
+    public long getRuns() { return runs.sum(); }
+    public long getCancelledRuns() { return cancelledRuns.sum(); }
+    public long getActiveRuns() { return activeRuns.get(); }
+    public long getWallTimeMillis() { return wallNanos.sum() / 1_000_000; }
+    public long getProcessesCompleted() { return processes.sum(); }
+    public long getEventsProcessed() { return events.sum(); }
+    public long getTicksSimulated() { return ticks.sum(); }
+    public long getReadyQueueLookups() { return readyQueueLookups.sum(); }
+    public long getContextSwitches() { return contextSwitches.sum(); }
+    public long getAgingSteps() { return agingSteps.sum(); }
+    public long getCompletions() { return segments(SegmentEnd.COMPLETED); }
+    public long getQuantumExpiries() { return segments(SegmentEnd.QUANTUM_EXPIRED); }
+    public long getPreemptions() { return segments(SegmentEnd.PREEMPTED); }
+    public long getPriorityPreemptions() { return segments(SegmentEnd.PRIORITY_PREEMPT); }
+    public long getSjfPreemptions() { return segments(SegmentEnd.SJF_PREEMPT); }
+
+    public long getDispatches() {
+        long sum = 0;
+        for (LongAdder s : segments) sum += s.sum();
+        return sum;
+    }
+
+    public double getAverageReadyQueueLength() {
+        long lookups = readyQueueLookups.sum();
+        return lookups == 0 ? 0 : (double) readyQueueLength.sum() / lookups;
+    }
+
+    public void reset() {
+        for (LongAdder a : new LongAdder[]{runs, cancelledRuns, wallNanos, processes, events, ticks,
+                readyQueueLookups, readyQueueLength, contextSwitches, agingSteps}) {
+            a.reset();
+        }
+        for (LongAdder s : segments) s.reset();
+    }
+
+    private long segments(SegmentEnd reason) {
+        return segments[reason.ordinal()].sum();
+    }
+}
+
+// Wraps every engine the registry hands out: counts its segments, reports the run to
+// JFR and adds the run's counters and wall time to the engine's metrics
+class InstrumentedScheduler implements Scheduler {
+
+    private final String name;
+    private final Scheduler engine;
+    private final SchedulerMetrics metrics;
+
+    InstrumentedScheduler(String name, Scheduler engine) {
+        this.name = name;
+        this.engine = engine;
+        this.metrics = SchedulerMetrics.of(name);
+    }
+
+    public boolean listsEveryDispatch() {
+        return engine.listsEveryDispatch();
+    }
+
+    public boolean readsParameters() {
+        return engine.readsParameters();
+    }
+
+    public boolean checkpoints() {
+        return engine.checkpoints();
+    }
+
+    public SchedulerResult run(ArrivalCursor arrivals, SchedulerConfig config, TimelineSink timeline) {
+        return measure(arrivals, timeline, counted -> engine.run(arrivals, config, counted));
+    }
+
+    public SchedulerResult resume(ArrivalCursor arrivals, SchedulerConfig config, TimelineSink timeline,
+                                  SnapshotReader in) {
+        return measure(arrivals, timeline, counted -> engine.resume(arrivals, config, counted, in));
+    }
+
+    private SchedulerResult measure(ArrivalCursor arrivals, TimelineSink timeline,
+                                    Function<TimelineSink, SchedulerResult> run) {
+        InstrumentedTimeline counted = new InstrumentedTimeline(timeline, name, arrivals.table);
+        SchedulerRunEvent event = SchedulerEvents.recording() ? new SchedulerRunEvent() : null;
+        if (event != null) event.begin();
+        metrics.started();
+
+        long start = System.nanoTime();
+        boolean cancelled = true;
+        try {
+            SchedulerResult result = run.apply(counted);
+            cancelled = false;
+            return result;
+        } finally {
+            metrics.finished(arrivals.state, counted, System.nanoTime() - start, cancelled);
+
+            if (event != null && event.shouldCommit()) {
+                event.engine = name;
+                event.processes = arrivals.table.size;
+                event.events = arrivals.state.counters.events;
+                event.ticks = counted.firstStart < 0 ? 0 : counted.lastEnd - counted.firstStart;
+                event.commit();
+            }
+        }
+    }
+}
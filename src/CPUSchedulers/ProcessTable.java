@@ -0,0 +1,304 @@
+package CPUSchedulers;
+
+import java.util.*;
+
+// ================================
+// Process table
+// ================================
+
+// Processes stored column by column, one int[] per field indexed by row, with names
+// interned to int ids. Rows are added in input order, so a row is also the process id.
+//
+// The table only holds the input and is never written while simulating, so any number
+// of runs can share it; each run keeps its mutable state in its own RunState. Rows may
+// be appended, as a streamed workload does, but not while the table is shared.
+class ProcessTable {
+
+    private final Map<String, Integer> nameIds;
+    private final List<String> names;
+
+    int[] nameId;
+    int[] arrival;
+    int[] burst;
+    int[] priority;
+    int[] quantum;
+
+    int size;
+
+    // Rows by arrival, computed on first use
+    private int[] arrivalOrder;
+
+    ProcessTable(int capacity) {
+        nameIds = new HashMap<>();
+        names = new ArrayList<>();
+
+        capacity = Math.max(1, capacity);
+        nameId = new int[capacity];
+        arrival = new int[capacity];
+        burst = new int[capacity];
+        priority = new int[capacity];
+        quantum = new int[capacity];
+    }
+
+    // Shares the names with base, which must not grow any more
+    private ProcessTable(ProcessTable base, int[] arrival, int[] burst, int[] priority, int[] quantum,
+                         int[] arrivalOrder) {
+        nameIds = base.nameIds;
+        names = base.names;
+        nameId = base.nameId;
+        this.arrival = arrival;
+        this.burst = burst;
+        this.priority = priority;
+        this.quantum = quantum;
+        size = base.size;
+        this.arrivalOrder = arrivalOrder;
+    }
+
+    // A table over whole columns, taking ownership of them. Names are given by id and
+    // must be distinct, as a table interns them.
+    static ProcessTable ofColumns(String[] names, int[] nameId, int[] arrival, int[] burst, int[] priority,
+                                  int[] quantum) {
+        ProcessTable t = new ProcessTable(0);
+        for (String name : names) t.intern(name);
+        if (t.names.size() != names.length) throw new IllegalArgumentException("Process names are not distinct");
+        t.nameId = nameId;
+        t.arrival = arrival;
+        t.burst = burst;
+        t.priority = priority;
+        t.quantum = quantum;
+        t.size = arrival.length;
+        return t;
+    }
+
+    static ProcessTable of(List<Process> processes) {
+        ProcessTable t = new ProcessTable(processes.size());
+        for (Process p : processes) t.add(p);
+        return t;
+    }
+
+    int add(Process p) {
+        return add(p.name, p.arrivalTime, p.burstTime, p.priority, p.quantum);
+    }
+
+    // Append a row and return its index
+    int add(String name, int arrivalTime, int burstTime, int priorityValue, int quantumValue) {
+        if (size == arrival.length) grow();
+
+        int row = size++;
+        nameId[row] = intern(name);
+        arrival[row] = arrivalTime;
+        burst[row] = burstTime;
+        priority[row] = priorityValue;
+        quantum[row] = quantumValue;
+        arrivalOrder = null;
+        return row;
+    }
+
+    // The same processes with every AG quantum multiplied by scale, rounded and at
+    // least 1. Only the quantum column is copied.
+    ProcessTable withQuantaScaled(double scale) {
+        int[] scaled = new int[size];
+        for (int row = 0; row < size; row++) {
+            scaled[row] = (int) Math.max(1, Math.round(quantum[row] * scale));
+        }
+        return new ProcessTable(this, arrival, burst, priority, scaled, arrivalOrder());
+    }
+
+    // The same processes with the input of some rows replaced. The columns are copied,
+    // and the arrival order is updated by moving the rows whose arrival changed rather
+    // than sorting again.
+    ProcessTable withEdits(List<ProcessEdit> edits) {
+        int[] newArrival = Arrays.copyOf(arrival, size);
+        int[] newBurst = Arrays.copyOf(burst, size);
+        int[] newPriority = Arrays.copyOf(priority, size);
+        int[] newQuantum = Arrays.copyOf(quantum, size);
+
+        boolean[] moved = new boolean[size];
+        List<Long> movedKeys = new ArrayList<>();
+        for (ProcessEdit e : edits) {
+            newArrival[e.row] = e.arrival;
+            newBurst[e.row] = e.burst;
+            newPriority[e.row] = e.priority;
+            newQuantum[e.row] = e.quantum;
+            if (e.arrival != arrival[e.row] && !moved[e.row]) {
+                moved[e.row] = true;
+                movedKeys.add(key(e.arrival, e.row));
+            }
+        }
+        Collections.sort(movedKeys);
+
+        // Merge the moved rows, by their new arrival, into the order of the others
+        int[] order = arrivalOrder();
+        int[] newOrder = new int[size];
+        int n = 0, m = 0;
+        for (int row : order) {
+            if (moved[row]) continue;
+            long k = key(arrival[row], row);
+            while (m < movedKeys.size() && movedKeys.get(m) < k) newOrder[n++] = (int) (long) movedKeys.get(m++);
+            newOrder[n++] = row;
+        }
+        while (m < movedKeys.size()) newOrder[n++] = (int) (long) movedKeys.get(m++);
+
+        return new ProcessTable(this, newArrival, newBurst, newPriority, newQuantum, newOrder);
+    }
+
+    String name(int row) {
+        return names.get(nameId[row]);
+    }
+
+    // Rows sorted by arrival, ties in input order. Shared, must not be modified.
+    synchronized int[] arrivalOrder() {
+        if (arrivalOrder != null)
+            return arrivalOrder;
+
+        long[] keys = new long[size];
+        for (int row = 0; row < size; row++) {
+            keys[row] = key(arrival[row], row);
+        }
+        Arrays.sort(keys);
+
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) order[i] = (int) keys[i];
+        arrivalOrder = order;
+        return order;
+    }
+
+    // Index of a row in the arrival order
+    int arrivalPosition(int row) {
+        int[] order = arrivalOrder();
+        long k = key(arrival[row], row);
+        int lo = 0, hi = order.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (key(arrival[order[mid]], order[mid]) < k) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // Sorts by arrival, then row
+    private static long key(int arrival, int row) {
+        return ((long) arrival << 32) | row;
+    }
+
+    private int intern(String name) {
+        Integer id = nameIds.get(name);
+        if (id == null) {
+            id = names.size();
+            nameIds.put(name, id);
+            names.add(name);
+        }
+        return id;
+    }
+
+    private void grow() {
+        int capacity = Math.max(16, arrival.length * 2);
+        nameId = Arrays.copyOf(nameId, capacity);
+        arrival = Arrays.copyOf(arrival, capacity);
+        burst = Arrays.copyOf(burst, capacity);
+        priority = Arrays.copyOf(priority, capacity);
+        quantum = Arrays.copyOf(quantum, capacity);
+    }
+}
+
+// Mutable state of one run over a shared table, indexed by row: remaining time,
+// current priority (lowered by aging), the time a process first got the CPU and its
+// completion time, plus the statistics of the processes completed so far and counts
+// of the work the engine did.
+// Engine-specific state stays in the engine; everything else is read from the table.
+class RunState {
+    final ProcessTable table;
+    final RunStatistics statistics = new RunStatistics();
+    final RunCounters counters = new RunCounters();
+
+    int[] remaining;
+    int[] priority;
+    int[] firstRun;
+    int[] completion;
+
+    // Sees every completion as it happens, if set before the run starts
+    RunObserver observer;
+
+    // Snapshots the run now and then, if set before the run starts; engines that
+    // cannot resume ignore it
+    RunSnapshots snapshots;
+
+    // Rows initialised so far
+    private int size;
+
+    RunState(ProcessTable table) {
+        this.table = table;
+        int capacity = Math.max(16, table.size);
+        remaining = new int[capacity];
+        priority = new int[capacity];
+        firstRun = new int[capacity];
+        completion = new int[capacity];
+        extend();
+    }
+
+    // Initialise the rows appended to the table since the last call
+    void extend() {
+        int n = table.size;
+        if (n > remaining.length) {
+            int capacity = Math.max(n, remaining.length * 2);
+            remaining = Arrays.copyOf(remaining, capacity);
+            priority = Arrays.copyOf(priority, capacity);
+            firstRun = Arrays.copyOf(firstRun, capacity);
+            completion = Arrays.copyOf(completion, capacity);
+        }
+
+        System.arraycopy(table.burst, size, remaining, size, n - size);
+        System.arraycopy(table.priority, size, priority, size, n - size);
+        Arrays.fill(firstRun, size, n, -1);
+        size = n;
+    }
+
+    // A process got the CPU at the given time
+    void started(int row, int time) {
+        if (firstRun[row] < 0) firstRun[row] = time;
+    }
+
+    // A process finished at the given time, having waited for as long as it did not run
+    void complete(int row, int time) {
+        complete(row, time, time - table.arrival[row] - table.burst[row]);
+    }
+
+    void complete(int row, int time, int waitingTime) {
+        completion[row] = time;
+        statistics.record(waitingTime, time - table.arrival[row], firstRun[row] - table.arrival[row]);
+        if (observer != null) observer.completed(row, time, waitingTime);
+    }
+
+    void save(SnapshotWriter out) {
+        out.putInt(size);
+        out.putColumn(remaining);
+        out.putColumn(priority);
+        out.putColumn(firstRun);
+        if (out.keepsResults()) {
+            out.putColumn(completion);
+            statistics.save(out);
+            counters.save(out);
+        }
+    }
+
+    // Over the same table, every row already initialised
+    void restore(SnapshotReader in) {
+        if (in.getInt() != size) throw new IllegalStateException("Snapshot is of a different workload");
+        in.getColumn(remaining);
+        in.getColumn(priority);
+        in.getColumn(firstRun);
+        if (in.keepsResults()) {
+            in.getColumn(completion);
+            statistics.restore(in);
+            counters.restore(in);
+        }
+    }
+}
+
+// Follows a run while it is simulated. Every engine reports completions through its
+// RunState, so an observer set on ArrivalCursor.state works with any of them. Throwing
+// CancellationException stops the run at that point; the exception reaches the caller
+// of Scheduler.run and the run state is left as it was.
+interface RunObserver {
+    void completed(int row, int time, int waitingTime);
+}
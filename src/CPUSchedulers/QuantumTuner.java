@@ -0,0 +1,277 @@
+package CPUSchedulers;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.io.PrintStream;
+
+// ================================
+// Quantum tuner
+// ================================
+
+// What the tuner minimises, as a long score. Each score only grows as processes
+// complete, so a partial run gives a lower bound of its final score.
+enum TuningObjective {
+    // Scored as the total waiting time, which orders candidates like the average
+    AVG_WAITING("avg waiting"),
+    P99_TURNAROUND("p99 turnaround"),
+    SWITCHES("switches");
+
+    final String label;
+
+    TuningObjective(String label) {
+        this.label = label;
+    }
+
+    static TuningObjective parse(String name) {
+        switch (name) {
+            case "avg-waiting": return AVG_WAITING;
+            case "p99-turnaround": return P99_TURNAROUND;
+            case "switches": return SWITCHES;
+            default:
+                throw new IllegalArgumentException("Unknown objective: " + name
+                        + " (available: avg-waiting, p99-turnaround, switches)");
+        }
+    }
+}
+
+// One candidate value of the tuned parameter. A pruned candidate was stopped once its
+// bound passed the best complete score, which is then all that is known of it.
+class TuningEvaluation {
+    final double parameter;
+    final long score;
+    final boolean pruned;
+
+    TuningEvaluation(double parameter, long score, boolean pruned) {
+        this.parameter = parameter;
+        this.score = score;
+        this.pruned = pruned;
+    }
+}
+
+// Watches one candidate run and stops it as soon as it can no longer beat the best
+// complete score: for AVG_WAITING once the waiting time of the processes completed so
+// far exceeds it, for P99_TURNAROUND once more than 1% of all processes have finished
+// with a longer turnaround, for SWITCHES once the switches so far exceed it.
+class TuningCandidate implements RunObserver, TimelineSink {
+
+    private final TuningObjective objective;
+    private final AtomicLong best;
+    private final ProcessTable t;
+    private final RunState s;
+
+    long waitingSum;
+    int switches;
+    private int lastRow = -1;
+
+    // The longest turnarounds so far, shortest on top, enough of them to decide the p99
+    private final IntHeap longest;
+    private final int beyondP99;
+
+    TuningCandidate(TuningObjective objective, AtomicLong best, ArrivalCursor arrivals) {
+        this.objective = objective;
+        this.best = best;
+        this.t = arrivals.table;
+        this.s = arrivals.state;
+
+        int n = t.size;
+        beyondP99 = n - (int) Math.max(1, Math.ceil(0.99 * n));
+        longest = new IntHeap((a, b) -> {
+            int ta = s.completion[a] - t.arrival[a], tb = s.completion[b] - t.arrival[b];
+            return ta != tb ? Integer.compare(ta, tb) : Integer.compare(a, b);
+        });
+    }
+
+    public void completed(int row, int time, int waitingTime) {
+        switch (objective) {
+            case AVG_WAITING:
+                waitingSum += waitingTime;
+                if (waitingSum > best.get()) throw new CancellationException();
+                break;
+            case P99_TURNAROUND:
+                longest.add(row);
+                if (longest.size() > beyondP99 + 1) longest.poll();
+                if (longest.size() > beyondP99 && bound() > best.get()) throw new CancellationException();
+                break;
+        }
+    }
+
+    public void segment(int row, int start, int end, SegmentEnd reason) {
+        if (row != lastRow && lastRow >= 0) switches++;
+        lastRow = row;
+
+        if (objective == TuningObjective.SWITCHES && switches > best.get()) throw new CancellationException();
+    }
+
+    // Lower bound of the final score
+    long bound() {
+        switch (objective) {
+            case AVG_WAITING:
+                return waitingSum;
+            case P99_TURNAROUND:
+                if (longest.size() <= beyondP99) return 0;
+                int row = longest.peek();
+                return s.completion[row] - t.arrival[row];
+            default:
+                return switches;
+        }
+    }
+}
+
+// Searches for the RR quantum, or the factor AG initial quanta are scaled by, that
+// minimises an objective on one workload. Each round spreads a few candidates evenly
+// over the current range and runs them in parallel, then narrows the range to one step
+// either side of the best value found so far, until the step reaches the resolution
+// (1 for the RR quantum). This assumes the objective is roughly unimodal in the
+// parameter; a narrow dip between two coarse candidates can be missed.
+//
+// All candidates share one bound, the best complete score so far, and every run is
+// watched by a TuningCandidate that abandons it once it can no longer win. The best
+// candidate is never pruned, so the outcome does not depend on which runs finish first.
+class QuantumTuner {
+
+    static final int CANDIDATES_PER_ROUND = 8;
+
+    final String engine;
+    final TuningObjective objective;
+    final Workload workload;
+
+    // Smallest step of the AG quantum scale
+    double resolution = 1.0 / 64;
+
+    private final AtomicLong best = new AtomicLong(Long.MAX_VALUE);
+    private final Map<Double, TuningEvaluation> evaluated = new HashMap<>();
+
+    QuantumTuner(String engine, TuningObjective objective, Workload workload) {
+        if (!engine.equals("RR") && !engine.equals("AG")) {
+            throw new IllegalArgumentException("Only RR (quantum) and AG (quantum scale) can be tuned, not " + engine);
+        }
+        this.engine = engine;
+        this.objective = objective;
+        this.workload = workload;
+    }
+
+    boolean tunesQuantum() {
+        return engine.equals("RR");
+    }
+
+    // Search [min, max] and return the best complete evaluation. Progress is printed
+    // to out, round by round.
+    TuningEvaluation tune(double min, double max, int threads, PrintStream out)
+            throws InterruptedException, ExecutionException {
+
+        if (tunesQuantum()) {
+            min = Math.max(1, Math.ceil(min));
+            max = Math.floor(max);
+        }
+        if (max < min) throw new IllegalArgumentException("Empty range: " + min + ".." + max);
+
+        // Sort once, every candidate shares the arrival order
+        workload.table.arrivalOrder();
+
+        double lo = min, hi = max;
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try {
+            for (int round = 1; ; round++) {
+                double step = (hi - lo) / (CANDIDATES_PER_ROUND - 1);
+                if (tunesQuantum()) step = Math.max(1, step);
+
+                // Counted rather than stepped up to hi: a range of one point has a step
+                // of 0 and is a single candidate
+                List<Double> candidates = new ArrayList<>();
+                for (int i = 0; i < CANDIDATES_PER_ROUND; i++) {
+                    double v = Math.min(lo + i * step, hi);
+                    double c = tunesQuantum() ? Math.round(v) : v;
+                    if (!evaluated.containsKey(c) && !candidates.contains(c)) candidates.add(c);
+                }
+
+                List<Callable<TuningEvaluation>> tasks = new ArrayList<>();
+                for (double c : candidates) tasks.add(() -> evaluate(c));
+                for (Future<TuningEvaluation> f : pool.invokeAll(tasks)) {
+                    TuningEvaluation e = f.get();
+                    evaluated.put(e.parameter, e);
+                }
+
+                TuningEvaluation leader = best();
+                out.println(String.format(Locale.ROOT, "Round %d: %s %s..%s, %d candidates, best %s = %s (%s %s)",
+                        round, parameterName(), format(lo), format(hi), candidates.size(),
+                        parameterName(), format(leader.parameter), objective.label, formatScore(leader.score)));
+                for (double c : candidates) {
+                    TuningEvaluation e = evaluated.get(c);
+                    out.println("  " + parameterName() + " = " + format(c) + " | "
+                            + (e.pruned ? "pruned (" + objective.label + " >= " + formatScore(e.score) + ")"
+                                        : objective.label + " = " + formatScore(e.score)));
+                }
+
+                if (tunesQuantum() ? step <= 1 : step <= resolution)
+                    return leader;
+
+                lo = Math.max(min, leader.parameter - step);
+                hi = Math.min(max, leader.parameter + step);
+                if (tunesQuantum()) {
+                    // Whole quanta, so the last round covers every one next to the leader
+                    lo = Math.floor(lo);
+                    hi = Math.ceil(hi);
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    TuningEvaluation evaluate(double parameter) {
+        SchedulerConfig base = workload.config;
+        SchedulerConfig config = new SchedulerConfig(base.contextSwitch,
+                tunesQuantum() ? (int) parameter : base.rrQuantum, base.agingInterval);
+        config.processResults = false;
+
+        ProcessTable table = tunesQuantum() ? workload.table : workload.table.withQuantaScaled(parameter);
+        ArrivalCursor arrivals = ArrivalCursor.over(table);
+        TuningCandidate candidate = new TuningCandidate(objective, best, arrivals);
+        arrivals.state.observer = candidate;
+
+        SchedulerResult result;
+        try {
+            result = SchedulerRegistry.create(engine).run(arrivals, config, candidate);
+        } catch (CancellationException e) {
+            return new TuningEvaluation(parameter, candidate.bound(), true);
+        }
+
+        long score;
+        switch (objective) {
+            case AVG_WAITING: score = result.statistics.waiting.sum(); break;
+            case P99_TURNAROUND: score = result.statistics.turnaround.percentile(99); break;
+            default: score = candidate.switches;
+        }
+
+        best.accumulateAndGet(score, Math::min);
+        return new TuningEvaluation(parameter, score, false);
+    }
+
+    // Lowest complete score, ties to the smaller parameter
+    TuningEvaluation best() {
+        TuningEvaluation leader = null;
+        for (TuningEvaluation e : evaluated.values()) {
+            if (e.pruned) continue;
+            if (leader == null || e.score < leader.score
+                    || (e.score == leader.score && e.parameter < leader.parameter)) {
+                leader = e;
+            }
+        }
+        return leader;
+    }
+
+    String parameterName() {
+        return tunesQuantum() ? "quantum" : "AG quantum scale";
+    }
+
+    String format(double parameter) {
+        return tunesQuantum() ? String.valueOf((long) parameter) : String.format(Locale.ROOT, "%.4f", parameter);
+    }
+
+    String formatScore(long score) {
+        return objective == TuningObjective.AVG_WAITING
+                ? String.format(Locale.ROOT, "%.2f", (double) score / Math.max(1, workload.table.size))
+                : String.valueOf(score);
+    }
+}
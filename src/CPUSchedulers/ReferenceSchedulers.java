@@ -0,0 +1,642 @@
+package CPUSchedulers;
+
+import java.util.*;
+
+// ================================
+// Reference engines
+// ================================
+
+// The original tick-by-tick SJF, RR, Priority and AG engines, kept unchanged in
+// behaviour. They are registered as SJF-Reference, RR-Reference, Priority-Reference and
+// AG-Reference, so runners, sweeps and benchmarks can run them side by side with the
+// table-based engines, and VerifyRunner checks those against them.
+// Each drains its cursor and simulates one time unit at a time over a copy of the
+// input, which is far too slow for anything but small workloads. The execution order
+// is the one the engine keeps itself; the timeline and run state are only fed.
+
+class ReferenceProcess {
+    final int row;
+    String name;
+    int arrivalTime;
+    int burstTime;
+    int remainingTime;
+    int priority;
+
+    int completionTime;
+    int tempArrival;
+
+    ReferenceProcess(ProcessTable t, int row) {
+        this.row = row;
+        this.name = t.name(row);
+        this.arrivalTime = t.arrival[row];
+        this.burstTime = t.burst[row];
+        this.remainingTime = t.burst[row];
+        this.priority = t.priority[row];
+    }
+
+    // Every process of the run in row order, once the cursor has been drained
+    static List<ReferenceProcess> drain(ArrivalCursor arrivals) {
+        while (arrivals.hasNext()) arrivals.poll();
+
+        ProcessTable t = arrivals.table;
+        List<ReferenceProcess> ps = new ArrayList<>(t.size);
+        for (int row = 0; row < t.size; row++) ps.add(new ReferenceProcess(t, row));
+        return ps;
+    }
+
+    // Attach the run's statistics and drop the per-process results unless requested
+    static SchedulerResult finish(SchedulerResult r, RunState s, SchedulerConfig config) {
+        r.statistics = s.statistics;
+        if (!config.processResults) r.processResults = null;
+        return r;
+    }
+
+    // Results in list order, waiting time derived from the completion time
+    static void fillResults(List<ReferenceProcess> ps, SchedulerResult r) {
+        int totalWT = 0, totalTAT = 0;
+        r.processResults = new ArrayList<>();
+
+        for (ReferenceProcess p : ps) {
+            int tat = p.completionTime - p.arrivalTime;
+            int wt = tat - p.burstTime;
+
+            r.processResults.add(new ProcessResult(p.name, wt, tat));
+            totalWT += wt;
+            totalTAT += tat;
+        }
+
+        r.averageWaitingTime = Math.round(((double) totalWT / ps.size()) * 100.0) / 100.0;
+        r.averageTurnaroundTime = Math.round(((double) totalTAT / ps.size()) * 100.0) / 100.0;
+    }
+
+    static void addIfChanged(List<String> order, String name) {
+        if (order.isEmpty() || !order.get(order.size() - 1).equals(name)) {
+            order.add(name);
+        }
+    }
+}
+
+// Feeds the CPU time of a reference engine to the run state and the timeline. Back-to-back
+// runs of the same process are joined into one segment, unless the engine ends the
+// segment itself.
+class ReferenceTimeline {
+    private final RunState s;
+    private final TimelineSink timeline;
+
+    // Why an open segment ends when another process takes over
+    private final SegmentEnd preempted;
+
+    private int segment = -1;
+    private int segmentStart;
+    private int segmentEnd;
+
+    ReferenceTimeline(ArrivalCursor arrivals, TimelineSink timeline, SegmentEnd preempted) {
+        this.s = arrivals.state;
+        this.timeline = timeline;
+        this.preempted = preempted;
+    }
+
+    // An empty segment is only reported if another process runs next
+    void ran(int row, int start, int end) {
+        if (row == segment && segmentStart == segmentEnd) {
+            segmentStart = start;
+        } else if (row != segment || start != segmentEnd) {
+            left(preempted);
+            segment = row;
+            segmentStart = start;
+        }
+        segmentEnd = end;
+
+        if (end > start) s.started(row, start);
+    }
+
+    // The running process left the CPU for the given reason
+    void left(SegmentEnd reason) {
+        if (segment != -1) {
+            timeline.segment(segment, segmentStart, segmentEnd, reason);
+            segment = -1;
+        }
+    }
+
+    void completed(int row, int time) {
+        left(SegmentEnd.COMPLETED);
+        s.complete(row, time);
+    }
+
+    void completed(int row, int time, int waitingTime) {
+        left(SegmentEnd.COMPLETED);
+        s.complete(row, time, waitingTime);
+    }
+}
+
+// Preemptive SJF
+class ReferenceSJF implements Scheduler {
+
+    public SchedulerResult run(ArrivalCursor arrivals, SchedulerConfig config, TimelineSink timeline) {
+
+        List<ReferenceProcess> ps = ReferenceProcess.drain(arrivals);
+        ReferenceTimeline cpu = new ReferenceTimeline(arrivals, timeline, SegmentEnd.PREEMPTED);
+
+        SchedulerResult result = new SchedulerResult();
+        result.executionOrder = new ArrayList<>();
+
+        int time = 0;
+        int completed = 0;
+        ReferenceProcess last = null;
+
+        while (completed < ps.size()) {
+
+            ReferenceProcess current = null;
+            int minRemaining = Integer.MAX_VALUE;
+
+            for (ReferenceProcess p : ps) {
+                if (p.remainingTime > 0 && p.arrivalTime <= time) {
+                    if (p.remainingTime < minRemaining) {
+                        minRemaining = p.remainingTime;
+                        current = p;
+                    }
+                }
+            }
+
+            if (current == null) {
+                time++;
+                continue;
+            }
+
+            if (last != null && last != current) {
+                time += config.contextSwitch;
+            }
+
+            ReferenceProcess.addIfChanged(result.executionOrder, current.name);
+
+            cpu.ran(current.row, time, time + 1);
+            current.remainingTime--;
+            time++;
+
+            if (current.remainingTime == 0) {
+                completed++;
+                current.completionTime = time;
+                cpu.completed(current.row, time);
+            }
+
+            last = current;
+        }
+
+        ReferenceProcess.fillResults(ps, result);
+        return ReferenceProcess.finish(result, arrivals.state, config);
+    }
+}
+
+// Round Robin, waiting time accumulated between turns on the CPU
+class ReferenceRR implements Scheduler {
+
+    public SchedulerResult run(ArrivalCursor arrivals, SchedulerConfig config, TimelineSink timeline) {
+
+        List<ReferenceProcess> ps = ReferenceProcess.drain(arrivals);
+        ReferenceTimeline cpu = new ReferenceTimeline(arrivals, timeline, SegmentEnd.QUANTUM_EXPIRED);
+
+        SchedulerResult result = new SchedulerResult();
+        result.executionOrder = new ArrayList<>();
+
+        Queue<ReferenceProcess> queue = new LinkedList<>();
+        int time = 0;
+        int completed = 0;
+
+        Map<String, Integer> totalWaitingTime = new HashMap<>();
+        Map<String, Integer> lastFinishTime = new HashMap<>();
+        for (ReferenceProcess p : ps) {
+            totalWaitingTime.put(p.name, 0);
+            lastFinishTime.put(p.name, p.arrivalTime);
+        }
+
+        for (ReferenceProcess p : ps) {
+            if (p.arrivalTime == 0) queue.add(p);
+        }
+
+        while (completed < ps.size()) {
+
+            if (queue.isEmpty()) {
+                time++;
+                for (ReferenceProcess p : ps) {
+                    if (p.remainingTime > 0 && p.arrivalTime == time) {
+                        queue.add(p);
+                    }
+                }
+                continue;
+            }
+
+            ReferenceProcess cur = queue.poll();
+
+            int wait = time - lastFinishTime.get(cur.name);
+            if (wait > 0) totalWaitingTime.put(cur.name, totalWaitingTime.get(cur.name) + wait);
+
+            ReferenceProcess.addIfChanged(result.executionOrder, cur.name);
+
+            int run = Math.min(config.rrQuantum, cur.remainingTime);
+            int start = time;
+
+            cpu.ran(cur.row, start, start + run);
+
+            cur.remainingTime -= run;
+            time += run;
+
+            for (ReferenceProcess p : ps) {
+                if (p.remainingTime > 0 &&
+                        p.arrivalTime > start &&
+                        p.arrivalTime <= time) {
+                    queue.add(p);
+                }
+            }
+
+            if (cur.remainingTime == 0) {
+                completed++;
+                cur.completionTime = time;
+                cpu.completed(cur.row, time, totalWaitingTime.get(cur.name));
+            } else {
+                queue.add(cur);
+            }
+
+            lastFinishTime.put(cur.name, time);
+
+            // context switch
+            for (int i = 0; i < config.contextSwitch; i++) {
+                time++;
+                for (ReferenceProcess p : ps) {
+                    if (p.remainingTime > 0 && p.arrivalTime == time) {
+                        queue.add(p);
+                    }
+                }
+            }
+        }
+
+        int totalWT = 0, totalTAT = 0;
+        result.processResults = new ArrayList<>();
+
+        for (ReferenceProcess p : ps) {
+            int wt = totalWaitingTime.get(p.name);
+            int tat = p.completionTime - p.arrivalTime;
+
+            result.processResults.add(new ProcessResult(p.name, wt, tat));
+            totalWT += wt;
+            totalTAT += tat;
+        }
+
+        result.averageWaitingTime = Math.round(((double) totalWT / ps.size()) * 100.0) / 100.0;
+        result.averageTurnaroundTime = Math.round(((double) totalTAT / ps.size()) * 100.0) / 100.0;
+        return ReferenceProcess.finish(result, arrivals.state, config);
+    }
+}
+
+// Preemptive priority with aging, results in arrival order
+class ReferencePriority implements Scheduler {
+
+    public SchedulerResult run(ArrivalCursor arrivals, SchedulerConfig config, TimelineSink timeline) {
+
+        List<ReferenceProcess> processes = ReferenceProcess.drain(arrivals);
+        ReferenceTimeline cpu = new ReferenceTimeline(arrivals, timeline, SegmentEnd.PREEMPTED);
+        for (ReferenceProcess p : processes) p.tempArrival = p.arrivalTime;
+
+        SchedulerResult result = new SchedulerResult();
+        result.executionOrder = new ArrayList<>();
+
+        PriorityQueue<ReferenceProcess> readyQueue = new PriorityQueue<>(
+                (p1, p2) -> {
+                    if (p1.priority != p2.priority)
+                        return Integer.compare(p1.priority, p2.priority);
+                    if (p1.arrivalTime != p2.arrivalTime)
+                        return Integer.compare(p1.arrivalTime, p2.arrivalTime);
+                    return p1.name.compareTo(p2.name);
+                }
+        );
+
+        processes.sort(Comparator.comparingInt(p -> p.arrivalTime));
+
+        int agingInterval = config.agingInterval;
+        int time = processes.get(0).arrivalTime;
+        int i = 0;
+
+        // initial arrivals
+        while (i < processes.size() && processes.get(i).arrivalTime == time) {
+            readyQueue.add(processes.get(i));
+            i++;
+        }
+
+        String lastProcess = "";
+        String lastExecuted = "";
+
+        while (!readyQueue.isEmpty() || i < processes.size()) {
+
+            ReferenceProcess current = null;
+            String currentName = "Null";
+
+            if (!readyQueue.isEmpty()) {
+                current = readyQueue.poll();
+                currentName = current.name;
+
+                if (!current.name.equals(lastExecuted)) {
+                    result.executionOrder.add(current.name);
+                    lastExecuted = current.name;
+                }
+            }
+
+            // Context switch
+            if (!lastProcess.isEmpty()
+                    && !lastProcess.equals(currentName)
+                    && !lastProcess.equals("Null")) {
+
+                // Listed in the execution order without running, as an empty segment
+                if (current != null) {
+                    readyQueue.add(current);
+                    cpu.ran(current.row, time, time);
+                }
+
+                for (int c = 0; c < config.contextSwitch; c++) {
+                    time++;
+                    applyAging(readyQueue, time, agingInterval);
+
+                    while (i < processes.size()
+                            && processes.get(i).arrivalTime == time) {
+                        readyQueue.add(processes.get(i));
+                        i++;
+                    }
+                }
+
+                lastProcess = currentName;
+                continue;
+            }
+
+            lastProcess = currentName;
+
+            // Execute 1 time unit
+            if (current != null)
+                cpu.ran(current.row, time, time + 1);
+
+            time++;
+
+            if (current != null)
+                current.remainingTime--;
+
+            applyAging(readyQueue, time, agingInterval);
+
+            while (i < processes.size()
+                    && processes.get(i).arrivalTime == time) {
+                readyQueue.add(processes.get(i));
+                i++;
+            }
+
+            if (current == null)
+                continue;
+
+            if (current.remainingTime > 0) {
+                current.tempArrival = time;
+                readyQueue.add(current);
+            } else {
+                current.completionTime = time;
+                cpu.completed(current.row, time);
+            }
+        }
+
+        ReferenceProcess.fillResults(processes, result);
+        return ReferenceProcess.finish(result, arrivals.state, config);
+    }
+
+    private void applyAging(PriorityQueue<ReferenceProcess> queue, int time, int agingInterval) {
+        if (agingInterval <= 0) return;
+
+        List<ReferenceProcess> temp = new ArrayList<>(queue);
+        queue.clear();
+
+        for (ReferenceProcess p : temp) {
+            if ((time - p.tempArrival) % agingInterval == 0) {
+                p.priority = Math.max(1, p.priority - 1);
+            }
+            queue.add(p);
+        }
+    }
+}
+
+class ReferenceAGProcess {
+    final int row;
+    String name;
+    int arrivalTime;
+    int burstTime;
+    int remainingTime;
+    int priority;
+    int quantum;
+    int completionTime;
+
+    List<Integer> quantumHistory = new ArrayList<>();
+
+    ReferenceAGProcess(ReferenceProcess p, int quantum) {
+        this.row = p.row;
+        this.name = p.name;
+        this.arrivalTime = p.arrivalTime;
+        this.burstTime = p.burstTime;
+        this.remainingTime = p.burstTime;
+        this.priority = p.priority;
+        this.quantum = quantum;
+        quantumHistory.add(quantum);
+    }
+}
+
+// AG: each quantum runs 25% FCFS, 25% non-preemptive priority, then preemptive SJF
+class ReferenceAG implements Scheduler {
+
+    public boolean listsEveryDispatch() {
+        return true;
+    }
+
+    public boolean readsParameters() {
+        return false;
+    }
+
+    public SchedulerResult run(ArrivalCursor arrivals, SchedulerConfig config, TimelineSink timeline) {
+        ReferenceAGCore ag = new ReferenceAGCore(arrivals, timeline);
+        ag.simulate();
+
+        List<ReferenceAGProcess> allProcesses = ag.allProcesses;
+        SchedulerResult result = new SchedulerResult();
+        result.executionOrder = ag.executionOrder;
+        result.processResults = new ArrayList<>();
+
+        int totalWT = 0, totalTAT = 0;
+        for (ReferenceAGProcess p : allProcesses) {
+            int tat = p.completionTime - p.arrivalTime;
+            int wt = tat - p.burstTime;
+
+            ProcessResult pr = new ProcessResult(p.name, wt, tat);
+            pr.quantumHistory = p.quantumHistory;
+            result.processResults.add(pr);
+            totalWT += wt;
+            totalTAT += tat;
+        }
+
+        result.averageWaitingTime = Math.round(((double) totalWT / allProcesses.size()) * 100.0) / 100.0;
+        result.averageTurnaroundTime = Math.round(((double) totalTAT / allProcesses.size()) * 100.0) / 100.0;
+        return ReferenceProcess.finish(result, arrivals.state, config);
+    }
+}
+
+class ReferenceAGCore {
+    int currentTime;
+    ArrayList<ReferenceAGProcess> processes = new ArrayList<>();
+    ArrayList<ReferenceAGProcess> readyQueue = new ArrayList<>();
+    ArrayList<ReferenceAGProcess> allProcesses = new ArrayList<>();
+    ArrayList<String> executionOrder = new ArrayList<>();
+    StopReason lastStopReason = StopReason.NONE;
+
+    private final ReferenceTimeline cpu;
+
+    ReferenceAGCore(ArrivalCursor arrivals, TimelineSink timeline) {
+        for (ReferenceProcess p : ReferenceProcess.drain(arrivals)) {
+            processes.add(new ReferenceAGProcess(p, arrivals.table.quantum[p.row]));
+        }
+        allProcesses.addAll(processes);
+        cpu = new ReferenceTimeline(arrivals, timeline, SegmentEnd.QUANTUM_EXPIRED);
+    }
+
+    // Move processes that have arrived to the ready queue
+    private void moveArrivedProcesses() {
+        Iterator<ReferenceAGProcess> it = processes.iterator();
+        while (it.hasNext()) {
+            ReferenceAGProcess p = it.next();
+            if (p.arrivalTime <= currentTime) {
+                readyQueue.add(p);
+                it.remove();
+            }
+        }
+    }
+
+    private ReferenceAGProcess pickNextProcess() {
+        if (readyQueue.isEmpty())
+            return null;
+
+        if (lastStopReason == StopReason.NONE)
+            return readyQueue.remove(0);
+
+        if (lastStopReason == StopReason.PRIORITY_PREEMPT) {
+            ReferenceAGProcess best = readyQueue.get(0);
+            for (ReferenceAGProcess p : readyQueue)
+                if (p.priority < best.priority)
+                    best = p;
+            readyQueue.remove(best);
+            return best;
+        }
+
+        ReferenceAGProcess shortest = readyQueue.get(0);
+        for (ReferenceAGProcess p : readyQueue)
+            if (p.remainingTime < shortest.remainingTime)
+                shortest = p;
+
+        readyQueue.remove(shortest);
+        return shortest;
+    }
+
+    private void complete(ReferenceAGProcess current) {
+        current.quantum = 0;
+        current.quantumHistory.add(0);
+        current.completionTime = currentTime;
+        cpu.completed(current.row, currentTime);
+    }
+
+    // Run the current process for the given time
+    private void run(ReferenceAGProcess current, int time) {
+        cpu.ran(current.row, currentTime, currentTime + time);
+        current.remainingTime -= time;
+        currentTime += time;
+    }
+
+    void simulate() {
+        while (!readyQueue.isEmpty() || !processes.isEmpty()) {
+
+            moveArrivedProcesses();
+
+            if (readyQueue.isEmpty()) {
+                currentTime++;
+                continue;
+            }
+
+            ReferenceAGProcess current = pickNextProcess();
+            executionOrder.add(current.name);
+            lastStopReason = StopReason.NONE;
+
+            int quantum = current.quantum;
+            int q25 = (int) Math.ceil(quantum * 0.25);
+            int q50 = (int) Math.ceil(quantum * 0.5);
+            int used = 0;
+
+            // First 25% of the quantum, FCFS
+            int run = Math.min(q25, current.remainingTime);
+            run(current, run);
+            used += run;
+            moveArrivedProcesses();
+
+            if (current.remainingTime == 0) {
+                complete(current);
+                continue;
+            }
+
+            // Next 25%, non-preemptive priority
+            while (used < q50 && current.remainingTime > 0) {
+                ReferenceAGProcess hp = null;
+                for (ReferenceAGProcess p : readyQueue)
+                    if (hp == null || p.priority < hp.priority)
+                        hp = p;
+
+                if (hp != null && hp.priority < current.priority) {
+                    int rem = quantum - used;
+                    current.quantum = quantum + (int) Math.ceil(rem / 2.0);
+                    current.quantumHistory.add(current.quantum);
+                    readyQueue.add(current);
+                    lastStopReason = StopReason.PRIORITY_PREEMPT;
+                    cpu.left(SegmentEnd.PRIORITY_PREEMPT);
+                    break;
+                }
+
+                run = Math.min(q25, current.remainingTime);
+                run(current, run);
+                used += run;
+                moveArrivedProcesses();
+            }
+
+            if (current.remainingTime == 0) {
+                complete(current);
+                continue;
+            }
+
+            if (lastStopReason == StopReason.PRIORITY_PREEMPT)
+                continue;
+
+            // Rest of the quantum, preemptive SJF
+            while (used < quantum && current.remainingTime > 0) {
+                ReferenceAGProcess sj = null;
+                for (ReferenceAGProcess p : readyQueue)
+                    if (sj == null || p.remainingTime < sj.remainingTime)
+                        sj = p;
+
+                if (sj != null && sj.remainingTime < current.remainingTime) {
+                    int rem = quantum - used;
+                    current.quantum = quantum + rem;
+                    current.quantumHistory.add(current.quantum);
+                    readyQueue.add(current);
+                    lastStopReason = StopReason.SJF_PREEMPT;
+                    cpu.left(SegmentEnd.SJF_PREEMPT);
+                    break;
+                }
+
+                run(current, 1);
+                used++;
+                moveArrivedProcesses();
+            }
+
+            if (current.remainingTime == 0) {
+                complete(current);
+            } else if (lastStopReason == StopReason.NONE) {
+                current.quantum = quantum + 2;
+                current.quantumHistory.add(current.quantum);
+                readyQueue.add(current);
+                cpu.left(SegmentEnd.QUANTUM_EXPIRED);
+            }
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package CPUSchedulers;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.*;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+// ================================
+// Result cache
+// ================================
+//
+// Results of earlier runs on disk, keyed by the SHA-256 of the engine version tag, the
+// engine name, the scheduler parameters and the processes in input order (each as name,
+// arrival, burst, priority and quantum), so the same test case hits whatever file or
+// JSON formatting it came from. Each result is a JSON file named by its key; an index
+// of fixed-width slots, memory-mapped and probed linearly, holds the key, size and last
+// use of every entry. Once the entries outgrow the size bound, or the index is three
+// quarters full, the least recently used ones are evicted.
+//
+//   index header (32 bytes)
+//     int  magic            'SCRC'
+//     int  version
+//     int  capacity         slots
+//     int  count            slots in use
+//     long totalBytes       size of every entry file
+//     long clock            bumped on every hit or store
+//   slots (48 bytes each)
+//     byte[32] key, int size (0 if empty), int reserved, long lastUsed
+//
+// Cached results carry the execution order, per-process results (with AG quantum
+// histories) and averages, but no statistics or timeline. The index is locked while
+// read or written, so several processes can share a directory.
+class ResultCache {
+
+    // Bump when an engine's output for the same input changes, so old entries miss
+    static final String ENGINE_VERSION = "engines-1";
+
+    static final int MAGIC = 0x53435243;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int SLOT_SIZE = 48;
+    static final int KEY_SIZE = 32;
+    static final int DEFAULT_CAPACITY = 4096;
+    static final long DEFAULT_MAX_BYTES = 64L << 20;
+
+    // Entries are named by the hex of their key
+    private static final Pattern ENTRY_NAME = Pattern.compile("[0-9a-f]{64}\\.json");
+
+    private static final Map<Path, ResultCache> OPEN = new HashMap<>();
+    private static ResultCache shared;
+    private static boolean sharedOpened;
+
+    final Path dir;
+    final long maxBytes;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer index;
+    private final int capacity;
+    private final Gson gson = new Gson();
+
+    final AtomicLong hits = new AtomicLong();
+    final AtomicLong misses = new AtomicLong();
+
+    private ResultCache(Path dir, long maxBytes) throws IOException {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(dir);
+
+        channel = FileChannel.open(dir.resolve("index"), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            FileLock lock = channel.lock();
+            try {
+                if (!valid()) initialize();
+                capacity = readHeader().getInt(8);
+                index = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * SLOT_SIZE);
+            } finally {
+                lock.release();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    // One instance per directory, a FileLock cannot be taken twice in the same JVM
+    static synchronized ResultCache open(Path dir, long maxBytes) throws IOException {
+        Path key = dir.toAbsolutePath().normalize();
+        ResultCache cache = OPEN.get(key);
+        if (cache == null) {
+            cache = new ResultCache(key, maxBytes);
+            OPEN.put(key, cache);
+        }
+        return cache;
+    }
+
+    // The cache the test runners use, in the directory named by the cpuschedulers.cache
+    // property (bounded to cpuschedulers.cache.maxMB, 64 by default), or null if unset
+    static synchronized ResultCache shared() {
+        if (!sharedOpened) {
+            sharedOpened = true;
+            String dir = System.getProperty("cpuschedulers.cache");
+            if (dir != null && !dir.isEmpty()) {
+                long maxMB = Long.getLong("cpuschedulers.cache.maxMB", DEFAULT_MAX_BYTES >> 20);
+                try {
+                    shared = open(Paths.get(dir), maxMB << 20);
+                } catch (IOException e) {
+                    System.err.println("Result cache disabled: " + e);
+                }
+            }
+        }
+        return shared;
+    }
+
+    // Run an engine through the shared cache, if there is one
+    static SchedulerResult cached(String engine, Workload workload) {
+        ResultCache cache = shared();
+        return cache == null ? SchedulerRegistry.create(engine).run(workload) : cache.run(engine, workload);
+    }
+
+    // The stored result for this engine and workload, or a fresh run that is then stored.
+    // A cache that cannot be read or written only costs the simulation.
+    SchedulerResult run(String engine, Workload workload) {
+        byte[] key = key(engine, workload);
+        try {
+            SchedulerResult result = get(key);
+            if (result != null) {
+                hits.incrementAndGet();
+                return result;
+            }
+        } catch (IOException e) {
+            // Treated as a miss
+        }
+
+        misses.incrementAndGet();
+        SchedulerResult result = SchedulerRegistry.create(engine).run(workload);
+        try {
+            put(key, result);
+        } catch (IOException e) {
+            // Not cached
+        }
+        return result;
+    }
+
+    static byte[] key(String engine, Workload workload) {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        ProcessTable t = workload.table;
+        SchedulerConfig c = workload.config;
+
+        // Hashed a buffer at a time, this runs before every checkpointed run too
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        putString(sha, buffer, ENGINE_VERSION);
+        putString(sha, buffer, engine);
+        buffer.putInt(c.contextSwitch).putInt(c.rrQuantum).putInt(c.agingInterval).put((byte) (c.processResults ? 1 : 0));
+
+        buffer.putInt(t.size);
+        for (int row = 0; row < t.size; row++) {
+            putString(sha, buffer, t.name(row));
+            room(sha, buffer, 16).putInt(t.arrival[row]).putInt(t.burst[row]).putInt(t.priority[row]).putInt(t.quantum[row]);
+        }
+
+        buffer.flip();
+        sha.update(buffer);
+        return sha.digest();
+    }
+
+    // Length-prefixed UTF-8, a null as length -1
+    private static void putString(MessageDigest sha, ByteBuffer buffer, String s) {
+        if (s == null) {
+            room(sha, buffer, 4).putInt(-1);
+            return;
+        }
+
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        room(sha, buffer, 4).putInt(bytes.length);
+        if (bytes.length > buffer.capacity()) {
+            room(sha, buffer, buffer.capacity());
+            sha.update(bytes);
+        } else {
+            room(sha, buffer, bytes.length).put(bytes);
+        }
+    }
+
+    private static ByteBuffer room(MessageDigest sha, ByteBuffer buffer, int bytes) {
+        if (buffer.remaining() < bytes) {
+            buffer.flip();
+            sha.update(buffer);
+            buffer.clear();
+        }
+        return buffer;
+    }
+
+    synchronized SchedulerResult get(byte[] key) throws IOException {
+        FileLock lock = channel.lock();
+        try {
+            int slot = find(key);
+            if (slot < 0)
+                return null;
+
+            SchedulerResult result;
+            try {
+                result = gson.fromJson(Files.readString(entry(key), StandardCharsets.UTF_8), SchedulerResult.class);
+            } catch (NoSuchFileException | JsonParseException e) {
+                result = null;
+            }
+            if (result == null) {
+                // Deleted or damaged behind the index's back
+                remove(slot);
+                return null;
+            }
+
+            index.putLong(slotOffset(slot) + 40, tick());
+            return result;
+        } finally {
+            lock.release();
+        }
+    }
+
+    // Entries larger than the whole cache are not stored
+    void put(byte[] key, SchedulerResult result) throws IOException {
+        byte[] json = gson.toJson(result).getBytes(StandardCharsets.UTF_8);
+        if (json.length == 0 || json.length > maxBytes)
+            return;
+
+        // Written aside and moved into place, a reader never sees half an entry
+        Path tmp = Files.createTempFile(dir, "entry", ".tmp");
+        try {
+            Files.write(tmp, json);
+            Files.move(tmp, entry(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        synchronized (this) {
+            FileLock lock = channel.lock();
+            try {
+                int slot = find(key);
+                if (slot >= 0) {
+                    // Stored by another run meanwhile, the files are identical
+                    index.putLong(slotOffset(slot) + 40, tick());
+                    return;
+                }
+
+                while (count() > 0 && (count() + 1 > capacity * 3 / 4 || totalBytes() + json.length > maxBytes)) {
+                    remove(leastRecentlyUsed());
+                }
+
+                slot = home(key);
+                while (index.getInt(slotOffset(slot) + KEY_SIZE) != 0) slot = (slot + 1) % capacity;
+
+                int off = slotOffset(slot);
+                index.put(off, key);
+                index.putInt(off + KEY_SIZE, json.length);
+                index.putLong(off + 40, tick());
+                index.putInt(12, count() + 1);
+                index.putLong(16, totalBytes() + json.length);
+            } finally {
+                lock.release();
+            }
+        }
+    }
+
+    synchronized void clear() throws IOException {
+        FileLock lock = channel.lock();
+        try {
+            for (int slot = 0; slot < capacity; slot++) {
+                int off = slotOffset(slot);
+                if (index.getInt(off + KEY_SIZE) == 0) continue;
+
+                byte[] key = new byte[KEY_SIZE];
+                index.get(off, key);
+                deleteEntry(key);
+                index.put(off, new byte[SLOT_SIZE]);
+            }
+            index.putInt(12, 0);
+            index.putLong(16, 0);
+        } finally {
+            lock.release();
+        }
+    }
+
+    synchronized int count() {
+        return index.getInt(12);
+    }
+
+    synchronized long totalBytes() {
+        return index.getLong(16);
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    // Slot holding the key, or -1
+    private int find(byte[] key) {
+        byte[] stored = new byte[KEY_SIZE];
+        for (int slot = home(key), probes = 0; probes < capacity; slot = (slot + 1) % capacity, probes++) {
+            int off = slotOffset(slot);
+            if (index.getInt(off + KEY_SIZE) == 0)
+                return -1;
+
+            index.get(off, stored);
+            if (Arrays.equals(stored, key))
+                return slot;
+        }
+        return -1;
+    }
+
+    // Oldest entry, found by a scan of the slots; eviction is rare next to lookups
+    private int leastRecentlyUsed() {
+        int oldest = -1;
+        long oldestUse = Long.MAX_VALUE;
+        for (int slot = 0; slot < capacity; slot++) {
+            int off = slotOffset(slot);
+            if (index.getInt(off + KEY_SIZE) != 0 && index.getLong(off + 40) < oldestUse) {
+                oldest = slot;
+                oldestUse = index.getLong(off + 40);
+            }
+        }
+        return oldest;
+    }
+
+    // Delete the entry and close the gap in its probe run by moving later slots back
+    // where their home allows, so lookups need no tombstones
+    private void remove(int slot) throws IOException {
+        int off = slotOffset(slot);
+        byte[] key = new byte[KEY_SIZE];
+        index.get(off, key);
+        deleteEntry(key);
+
+        index.putInt(12, count() - 1);
+        index.putLong(16, totalBytes() - index.getInt(off + KEY_SIZE));
+
+        int gap = slot;
+        byte[] moved = new byte[SLOT_SIZE];
+        for (int next = (gap + 1) % capacity; index.getInt(slotOffset(next) + KEY_SIZE) != 0; next = (next + 1) % capacity) {
+            index.get(slotOffset(next), key);
+            int home = home(key);
+
+            // The slot at next may move to the gap unless its home lies after the gap,
+            // cyclically up to next
+            boolean stays = gap <= next ? gap < home && home <= next : gap < home || home <= next;
+            if (stays) continue;
+
+            index.get(slotOffset(next), moved);
+            index.put(slotOffset(gap), moved);
+            gap = next;
+        }
+        index.put(slotOffset(gap), new byte[SLOT_SIZE]);
+    }
+
+    private void deleteEntry(byte[] key) {
+        try {
+            Files.deleteIfExists(entry(key));
+        } catch (IOException e) {
+            // Still open elsewhere, it is overwritten if the key comes back
+        }
+    }
+
+    private long tick() {
+        long clock = index.getLong(24) + 1;
+        index.putLong(24, clock);
+        return clock;
+    }
+
+    private int home(byte[] key) {
+        return Math.floorMod(ByteBuffer.wrap(key).getInt(), capacity);
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private Path entry(byte[] key) {
+        StringBuilder hex = new StringBuilder(KEY_SIZE * 2 + 5);
+        for (byte b : key) hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return dir.resolve(hex.append(".json").toString());
+    }
+
+    private ByteBuffer readHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        channel.read(header, 0);
+        header.flip();
+        return header;
+    }
+
+    private boolean valid() throws IOException {
+        if (channel.size() < HEADER_SIZE)
+            return false;
+        ByteBuffer header = readHeader();
+        int capacity = header.getInt(8);
+        return header.getInt(0) == MAGIC && header.getInt(4) == VERSION && capacity > 0
+                && channel.size() == HEADER_SIZE + (long) capacity * SLOT_SIZE;
+    }
+
+    // A fresh, empty index; entries of a previous one are deleted as they cannot be found.
+    // Only files named like an entry are touched, anything else in the directory is kept.
+    private void initialize() throws IOException {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir,
+                p -> ENTRY_NAME.matcher(p.getFileName().toString()).matches())) {
+            for (Path p : entries) Files.deleteIfExists(p);
+        }
+
+        channel.truncate(0);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putInt(DEFAULT_CAPACITY).putInt(0).putLong(0).putLong(0);
+        header.flip();
+        channel.write(header, 0);
+
+        ByteBuffer zero = ByteBuffer.allocate(SLOT_SIZE * 64);
+        for (long pos = HEADER_SIZE, end = HEADER_SIZE + (long) DEFAULT_CAPACITY * SLOT_SIZE; pos < end; ) {
+            zero.clear().limit((int) Math.min(zero.capacity(), end - pos));
+            pos += channel.write(zero, pos);
+        }
+    }
+
+    void printSummary(PrintStream out) {
+        out.println("Result cache " + dir + ": " + hits.get() + " hits, " + misses.get() + " misses, "
+                + count() + " entries, " + totalBytes() / 1024 + " KiB of " + maxBytes / 1024 + " KiB");
+    }
+}
@@ -0,0 +1,264 @@
+package CPUSchedulers;
+
+import java.util.*;
+import java.util.function.Supplier;
+import java.io.*;
+import java.nio.file.*;
+import com.google.gson.Gson;
+
+// ================================
+// Scheduler SPI
+// ================================
+
+// Common entry point for every scheduling engine
+interface Scheduler {
+
+    // Simulate processes supplied in arrival order, reporting every CPU segment to
+    // the timeline. The result has no execution order, unless the engine keeps its own.
+    SchedulerResult run(ArrivalCursor arrivals, SchedulerConfig config, TimelineSink timeline);
+
+    // Whether the execution order lists every dispatch, rather than only the points
+    // where the name of the running process changes
+    default boolean listsEveryDispatch() {
+        return false;
+    }
+
+    // Simulate with the timeline kept in memory and the execution order derived from it
+    default SchedulerResult run(ArrivalCursor arrivals, SchedulerConfig config) {
+        RunLengthTimeline timeline = new RunLengthTimeline(arrivals.table);
+        SchedulerResult result = run(arrivals, config, timeline);
+        result.timeline = timeline;
+        if (result.executionOrder == null) {
+            result.executionOrder = timeline.executionOrder(listsEveryDispatch());
+        }
+        return result;
+    }
+
+    default SchedulerResult run(Workload workload) {
+        return run(ArrivalCursor.over(workload.table), workload.config);
+    }
+
+    // Whether the engine reads any of the SchedulerConfig parameters
+    default boolean readsParameters() {
+        return true;
+    }
+
+    // Whether the engine snapshots its state to the run's RunSnapshots and can resume
+    default boolean checkpoints() {
+        return false;
+    }
+
+    // Continue a run from the engine state of a snapshot, once the cursor, run state
+    // and timeline have been restored from it
+    default SchedulerResult resume(ArrivalCursor arrivals, SchedulerConfig config, TimelineSink timeline,
+                                   SnapshotReader in) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " cannot resume from a snapshot");
+    }
+}
+
+// Scheduler parameters, each engine reads the ones it needs
+class SchedulerConfig {
+    int contextSwitch;
+    int rrQuantum;
+    int agingInterval;
+
+    // List a result per process, otherwise only the averages and statistics are reported
+    boolean processResults = true;
+
+    SchedulerConfig(int contextSwitch, int rrQuantum, int agingInterval) {
+        this.contextSwitch = contextSwitch;
+        this.rrQuantum = rrQuantum;
+        this.agingInterval = agingInterval;
+    }
+}
+
+// Processes to schedule together with the scheduler parameters. The processes are
+// converted to a table once; every run shares it and keeps its own RunState, so
+// several engines or parameter variants can run on the same workload at once.
+class Workload {
+    final ProcessTable table;
+    final SchedulerConfig config;
+
+    Workload(List<Process> processes, SchedulerConfig config) {
+        this(ProcessTable.of(processes), config);
+    }
+
+    Workload(ProcessTable table, SchedulerConfig config) {
+        this.table = table;
+        this.config = config;
+    }
+
+    // Load the input section of a test case file, either the SJF / RR / Priority
+    // schema or the AG one (which has no scheduler parameters), or a binary workload
+    static Workload load(String path) throws Exception {
+        if (BinaryWorkload.isBinary(path)) {
+            try (BinaryWorkload bin = BinaryWorkload.open(path)) {
+                return bin.toWorkload();
+            }
+        }
+
+        Gson gson = new Gson();
+        TestCase tc = gson.fromJson(Files.readString(Paths.get(path)), TestCase.class);
+        return tc.input.toWorkload();
+    }
+}
+
+// Engines by name, so runners and the command line can pick them. Each algorithm's
+// original tick-by-tick engine is registered as <algorithm>-Reference.
+class SchedulerRegistry {
+
+    static final String REFERENCE = "-Reference";
+
+    private static final Map<String, Supplier<Scheduler>> ENGINES = new LinkedHashMap<>();
+
+    static {
+        register("SJF", SJFScheduler::new);
+        register("RR", RRScheduler::new);
+        register("Priority", PriorityScheduler::new);
+        register("Priority-PerUnit", () -> new PriorityScheduler(true));
+        register("AG", AGScheduler::new);
+
+        register("SJF" + REFERENCE, ReferenceSJF::new);
+        register("RR" + REFERENCE, ReferenceRR::new);
+        register("Priority" + REFERENCE, ReferencePriority::new);
+        register("AG" + REFERENCE, ReferenceAG::new);
+    }
+
+    static synchronized void register(String name, Supplier<Scheduler> factory) {
+        ENGINES.put(name, factory);
+    }
+
+    // The engine comes wrapped in an InstrumentedScheduler that feeds its metrics
+    static synchronized Scheduler create(String name) {
+        Supplier<Scheduler> factory = ENGINES.get(name);
+        if (factory == null) {
+            throw new IllegalArgumentException("Unknown scheduler: " + name + " (available: " + ENGINES.keySet() + ")");
+        }
+        return new InstrumentedScheduler(name, factory.get());
+    }
+
+    static synchronized List<String> names() {
+        return new ArrayList<>(ENGINES.keySet());
+    }
+
+    // Algorithm an engine implements: its name up to the first '-'
+    static String algorithm(String name) {
+        int dash = name.indexOf('-');
+        return dash < 0 ? name : name.substring(0, dash);
+    }
+
+    // Name of the reference engine for the algorithm of an engine, null if there is none
+    static synchronized String reference(String name) {
+        String reference = algorithm(name) + REFERENCE;
+        return !reference.equals(name) && ENGINES.containsKey(reference) ? reference : null;
+    }
+}
+
+// Pull-based supply of processes, in input order. Returns null when exhausted.
+// Every process returned is owned by the caller.
+interface ProcessSource {
+    Process next() throws IOException;
+}
+
+// Feeds processes to an engine in arrival order, as rows of its table, and carries
+// the run's state. A streamed source is pulled only once the simulation reaches the
+// next arrival, and each process is appended to the table as it is read, so a
+// workload can be simulated while it is still being read. Rows are kept for the whole
+// run, completed ones included, so memory still grows with the number of processes.
+// The source must be sorted by arrival.
+class ArrivalCursor {
+    final ProcessTable table;
+    final RunState state;
+
+    private final ProcessSource source;
+
+    // Rows in arrival order when the whole table is known up front
+    private final int[] order;
+    private int position;
+
+    // Row of the next arrival, -1 if there is none
+    private int next;
+
+    ArrivalCursor(ProcessSource source) {
+        this.table = new ProcessTable(16);
+        this.state = new RunState(table);
+        this.source = source;
+        this.order = null;
+        this.next = fetch(Integer.MIN_VALUE);
+    }
+
+    private ArrivalCursor(ProcessTable table) {
+        this.table = table;
+        this.state = new RunState(table);
+        this.source = null;
+        this.order = table.arrivalOrder();
+        this.next = order.length > 0 ? order[position++] : -1;
+    }
+
+    // Every row of the table in arrival order, ties in input order, with a fresh run state
+    static ArrivalCursor over(ProcessTable table) {
+        return new ArrivalCursor(table);
+    }
+
+    static ArrivalCursor sorted(List<Process> input) {
+        return over(ProcessTable.of(input));
+    }
+
+    boolean hasNext() {
+        return next >= 0;
+    }
+
+    // Arrival time of the next process, or Integer.MAX_VALUE if there is none
+    int peekArrival() {
+        return next < 0 ? Integer.MAX_VALUE : table.arrival[next];
+    }
+
+    // Rows polled so far from a cursor over a whole table
+    int consumed() {
+        requireTable();
+        return next < 0 ? order.length : position - 1;
+    }
+
+    // Skip the first rows in arrival order of a fresh cursor over a whole table, as
+    // the run a snapshot was taken from had polled them
+    void skip(int rows) {
+        requireTable();
+        position = rows;
+        next = position < order.length ? order[position++] : -1;
+    }
+
+    private void requireTable() {
+        if (order == null) throw new IllegalStateException("A streamed workload cannot be snapshotted");
+    }
+
+    // Row of the next process
+    int poll() {
+        int row = next;
+        if (order != null) {
+            next = position < order.length ? order[position++] : -1;
+        } else {
+            next = fetch(table.arrival[row]);
+        }
+        return row;
+    }
+
+    private int fetch(int previousArrival) {
+        Process p;
+        try {
+            p = source.next();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (p == null)
+            return -1;
+
+        if (p.arrivalTime < previousArrival) {
+            throw new IllegalStateException("Process " + p.name + " arrives at " + p.arrivalTime
+                    + ", before the process read ahead of it; streamed workloads must be sorted by arrival");
+        }
+        int row = table.add(p);
+        state.extend();
+        return row;
+    }
+}
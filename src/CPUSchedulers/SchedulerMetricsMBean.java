@@ -0,0 +1,30 @@
+package CPUSchedulers;
+
+// JMX view of SchedulerMetrics; MBean interfaces have to be public
+public interface SchedulerMetricsMBean {
+    long getRuns();
+    long getCancelledRuns();
+    long getActiveRuns();
+    long getWallTimeMillis();
+    long getProcessesCompleted();
+
+    // Main-loop iterations against simulated time units covered by the timeline
+    long getEventsProcessed();
+    long getTicksSimulated();
+
+    long getReadyQueueLookups();
+    double getAverageReadyQueueLength();
+
+    long getContextSwitches();
+    long getAgingSteps();
+
+    // CPU segments, in total and by how they ended
+    long getDispatches();
+    long getCompletions();
+    long getQuantumExpiries();
+    long getPreemptions();
+    long getPriorityPreemptions();
+    long getSjfPreemptions();
+
+    void reset();
+}
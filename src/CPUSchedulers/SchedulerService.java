@@ -0,0 +1,689 @@
+package CPUSchedulers;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
+
+// ================================
+// Online scheduling service
+// ================================
+
+// Drives engines live from process arrivals sent over localhost TCP or a Unix domain
+// socket, one run per connection, in newline-delimited JSON:
+//
+//   -> {"type":"start","engine":"RR","contextSwitch":1,"rrQuantum":2,"agingInterval":5}
+//   -> {"type":"arrive","name":"P1","arrival":0,"burst":5,"priority":3,"quantum":4}
+//   -> {"type":"metrics"}
+//   -> {"type":"end"}
+//   <- {"type":"dispatch","process":"P1","time":0}
+//   <- {"type":"preempt","process":"P1","time":2,"reason":"QUANTUM_EXPIRED"}
+//   <- {"type":"complete","process":"P1","time":5,"waiting":0,"turnaround":5}
+//   <- {"type":"metrics",...}, or "done" with the same fields once the run has ended
+//   <- {"type":"error","message":"..."}, after which the connection is closed
+//
+// "start" is optional and must come first; fields it leaves out, or all of them without
+// it, come from the service's defaults. Arrivals must be sent in arrival order. "end",
+// or closing the sending side, ends the run: the engine finishes every process, reports
+// "done" and the connection is closed.
+//
+// The engine pulls arrivals from the connection as it would from a streamed file, so it
+// simulates up to an arrival as soon as the one after it is known, and reports a
+// segment, as its dispatch and the preemption or completion ending it, once it has ended.
+// Replies to "metrics" come in order with the decisions, once the engine has caught up
+// with the arrivals sent before it.
+class SchedulerService implements Closeable {
+
+    static final int DEFAULT_PORT = 7070;
+
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final Path socketFile;
+
+    final String engine;
+    final SchedulerConfig config;
+
+    // Engines pull their arrivals and block until the next one is known, so each run
+    // has a thread of its own, up to maxSessions at once
+    private final ThreadPoolExecutor sessions;
+
+    // Work handed to the selector thread by the engine threads
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+    private volatile boolean running = true;
+    private volatile Thread serving;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    private SchedulerService(ServerSocketChannel server, Path socketFile, String engine, SchedulerConfig config,
+                             int maxSessions) throws IOException {
+        this.server = server;
+        this.socketFile = socketFile;
+        this.engine = engine;
+        this.config = config;
+        this.selector = Selector.open();
+
+        // Fail before the first connection rather than on it
+        SchedulerRegistry.create(engine);
+
+        AtomicInteger threads = new AtomicInteger();
+        sessions = new ThreadPoolExecutor(0, maxSessions, 30, TimeUnit.SECONDS, new SynchronousQueue<>(), task -> {
+            Thread thread = new Thread(task, "scheduler-session-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    // Listen on a localhost TCP port, 0 for any free one
+    static SchedulerService tcp(int port, String engine, SchedulerConfig config, int maxSessions)
+            throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        return new SchedulerService(server, null, engine, config, maxSessions);
+    }
+
+    // Listen on a Unix domain socket, which must not exist yet and is removed on close
+    static SchedulerService unix(Path path, String engine, SchedulerConfig config, int maxSessions)
+            throws IOException {
+        ServerSocketChannel server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        server.bind(UnixDomainSocketAddress.of(path));
+        return new SchedulerService(server, path, engine, config, maxSessions);
+    }
+
+    SocketAddress address() throws IOException {
+        return server.getLocalAddress();
+    }
+
+    // Accept and serve connections on the calling thread until closed
+    void serve() throws IOException {
+        serving = Thread.currentThread();
+        try {
+            while (running) {
+                selector.select();
+
+                for (Runnable task; (task = tasks.poll()) != null; ) task.run();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+
+                    ServiceSession session = (ServiceSession) key.attachment();
+                    if (key.isReadable()) session.readable();
+                    if (key.isValid() && key.isWritable()) session.output.writable();
+                }
+            }
+        } finally {
+            for (SelectionKey key : selector.keys()) key.channel().close();
+            selector.close();
+            sessions.shutdownNow();
+            if (socketFile != null) Files.deleteIfExists(socketFile);
+            stopped.countDown();
+        }
+    }
+
+    // Stop serving and wait until the socket is closed; open connections are closed
+    // and their runs abandoned
+    public void close() {
+        running = false;
+        selector.wakeup();
+
+        Thread thread = serving;
+        if (thread != null && thread != Thread.currentThread()) {
+            try {
+                stopped.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    // Run a task on the selector thread
+    void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null)
+            return;
+
+        channel.configureBlocking(false);
+        if (channel.supportedOptions().contains(StandardSocketOptions.TCP_NODELAY)) {
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        }
+
+        ServiceSession session = new ServiceSession(this, channel);
+        session.key = channel.register(selector, SelectionKey.OP_READ, session);
+
+        try {
+            sessions.execute(session);
+        } catch (RejectedExecutionException e) {
+            session.key.interestOps(0);
+            session.output.line(ServiceSession.error("Too many sessions, at most "
+                    + sessions.getMaximumPoolSize() + " at once"));
+            session.output.finish();
+        }
+    }
+}
+
+// One message from a client, parsed on the selector thread
+class ServiceMessage {
+
+    enum Kind { START, ARRIVE, METRICS, END, INVALID, CLOSED }
+
+    final Kind kind;
+
+    // Set by START
+    String engine;
+    SchedulerConfig config;
+
+    // Set by ARRIVE, with the time the message was read
+    Process process;
+    long receivedNanos;
+
+    // Set by INVALID
+    String error;
+
+    ServiceMessage(Kind kind) {
+        this.kind = kind;
+    }
+
+    static ServiceMessage invalid(String error) {
+        ServiceMessage m = new ServiceMessage(Kind.INVALID);
+        m.error = error;
+        return m;
+    }
+
+    static ServiceMessage parse(String line, SchedulerService service) {
+        String type = null, name = null, engine = null;
+        int arrival = 0, burst = 0, priority = 0, quantum = 0;
+        boolean hasArrival = false, hasBurst = false;
+        SchedulerConfig config = new SchedulerConfig(service.config.contextSwitch, service.config.rrQuantum,
+                service.config.agingInterval);
+
+        try (JsonReader in = new JsonReader(new StringReader(line))) {
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "type": type = in.nextString(); break;
+                    case "name": name = in.nextString(); break;
+                    case "arrival": arrival = in.nextInt(); hasArrival = true; break;
+                    case "burst": burst = in.nextInt(); hasBurst = true; break;
+                    case "priority": priority = in.nextInt(); break;
+                    case "quantum": quantum = in.nextInt(); break;
+                    case "engine": engine = in.nextString(); break;
+                    case "contextSwitch": config.contextSwitch = in.nextInt(); break;
+                    case "rrQuantum": config.rrQuantum = in.nextInt(); break;
+                    case "agingInterval": config.agingInterval = in.nextInt(); break;
+                    default: in.skipValue();
+                }
+            }
+            in.endObject();
+        } catch (IOException | IllegalStateException | NumberFormatException e) {
+            return invalid("Malformed message: " + line);
+        }
+
+        if (type == null)
+            return invalid("Message without a type: " + line);
+
+        switch (type) {
+            case "start": {
+                ServiceMessage m = new ServiceMessage(Kind.START);
+                m.engine = engine != null ? engine : service.engine;
+                m.config = config;
+                return m;
+            }
+            case "arrive": {
+                if (name == null || !hasArrival || !hasBurst)
+                    return invalid("An arrival needs a name, arrival and burst: " + line);
+                if (burst <= 0)
+                    return invalid("Burst of " + name + " must be positive");
+
+                ServiceMessage m = new ServiceMessage(Kind.ARRIVE);
+                m.process = new Process(name, arrival, burst, priority, quantum);
+                m.receivedNanos = System.nanoTime();
+                return m;
+            }
+            case "metrics": return new ServiceMessage(Kind.METRICS);
+            case "end": return new ServiceMessage(Kind.END);
+            default: return invalid("Unknown message type: " + type);
+        }
+    }
+}
+
+// One connection and the run it drives. The selector thread reads and parses messages
+// into a bounded inbox; the session's engine thread pulls arrivals from it as its
+// ProcessSource and writes decisions to a bounded output. When the inbox is full the
+// selector stops reading the connection until the engine has taken half of it, and
+// when the output is full the engine waits for the client to read, so a client that
+// sends faster than the engine simulates, or reads slower than it decides, is held
+// back by TCP flow control rather than by growing buffers.
+class ServiceSession implements Runnable, ProcessSource, TimelineSink, RunObserver {
+
+    static final int INBOX = 1024;
+    static final int MAX_LINE = 64 * 1024;
+
+    private static final Gson GSON = new Gson();
+
+    private final SchedulerService service;
+    final SocketChannel channel;
+    final SessionOutput output;
+    SelectionKey key;
+
+    private final BlockingQueue<ServiceMessage> inbox = new ArrayBlockingQueue<>(INBOX);
+
+    // Set while the selector has stopped reading because the inbox was full
+    private final AtomicBoolean paused = new AtomicBoolean();
+
+    // Selector thread only: bytes read but not yet parsed, a message that did not fit
+    // in the inbox, and whether the client has closed its sending side
+    private final ByteBuffer input = ByteBuffer.allocate(MAX_LINE);
+    private ServiceMessage stalled;
+    private boolean eof;
+    private boolean endQueued;
+
+    // Engine thread only
+    private String engineName;
+    private ArrivalCursor arrivals;
+    private ServiceMessage first;
+    private boolean ended;
+    private long lastReceivedNanos = -1;
+    private int lastArrival;
+    private int completedWaiting;
+    private String[] quotedNames = new String[16];
+
+    // Microseconds from an arrival being read to the engine having simulated up to it
+    // and every decision it could make being written
+    private final LatencyHistogram decisionLatency = new LatencyHistogram();
+    private long decisions;
+
+    ServiceSession(SchedulerService service, SocketChannel channel) {
+        this.service = service;
+        this.channel = channel;
+        this.output = new SessionOutput(service, this);
+    }
+
+    // ---- engine thread ----
+
+    public void run() {
+        try {
+            first = take();
+            SchedulerConfig config = service.config;
+            engineName = service.engine;
+            if (first.kind == ServiceMessage.Kind.START) {
+                engineName = first.engine;
+                config = first.config;
+                first = null;
+            }
+            config = new SchedulerConfig(config.contextSwitch, config.rrQuantum, config.agingInterval);
+            config.processResults = false;
+
+            Scheduler engine = SchedulerRegistry.create(engineName);
+            arrivals = new ArrivalCursor(this);
+            arrivals.state.observer = this;
+            engine.run(arrivals, config, this);
+
+            recordLatency();
+            output.line(metrics("done"));
+        } catch (UncheckedIOException e) {
+            // The connection is gone, there is no one to tell
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            try {
+                output.line(error(e.getMessage()));
+            } catch (UncheckedIOException gone) {
+                // As above
+            }
+        } finally {
+            output.finish();
+        }
+    }
+
+    // Next arrival for the engine. Before waiting for one, everything decided so far
+    // goes out.
+    public Process next() {
+        recordLatency();
+        if (ended)
+            return null;
+
+        while (true) {
+            ServiceMessage m;
+            if (first != null) {
+                m = first;
+                first = null;
+            } else {
+                if (inbox.isEmpty()) output.flush();
+                m = take();
+            }
+
+            switch (m.kind) {
+                case ARRIVE:
+                    lastReceivedNanos = m.receivedNanos;
+                    lastArrival = m.process.arrivalTime;
+                    return m.process;
+                case METRICS:
+                    output.line(metrics("metrics"));
+                    break;
+                case END:
+                    ended = true;
+                    return null;
+                case START:
+                    throw new IllegalArgumentException("\"start\" must be the first message");
+                case INVALID:
+                    throw new IllegalArgumentException(m.error);
+                default:
+                    throw new UncheckedIOException(new IOException("Connection closed"));
+            }
+        }
+    }
+
+    public void completed(int row, int time, int waitingTime) {
+        // Every engine reports the completion just before the segment it ends
+        completedWaiting = waitingTime;
+    }
+
+    public void segment(int row, int start, int end, SegmentEnd reason) {
+        decisions++;
+        String process = quotedName(row);
+        output.line("{\"type\":\"dispatch\",\"process\":" + process + ",\"time\":" + start + "}");
+
+        if (reason == SegmentEnd.COMPLETED) {
+            output.line("{\"type\":\"complete\",\"process\":" + process + ",\"time\":" + end
+                    + ",\"waiting\":" + completedWaiting
+                    + ",\"turnaround\":" + (end - arrivals.table.arrival[row]) + "}");
+        } else {
+            output.line("{\"type\":\"preempt\",\"process\":" + process + ",\"time\":" + end
+                    + ",\"reason\":\"" + reason.name() + "\"}");
+        }
+    }
+
+    private ServiceMessage take() {
+        ServiceMessage m;
+        try {
+            m = inbox.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Service stopped"));
+        }
+
+        if (paused.get() && inbox.size() <= INBOX / 2 && paused.compareAndSet(true, false)) {
+            service.execute(this::resumeReading);
+        }
+        return m;
+    }
+
+    // The engine has just asked for the arrival after the last one, so it has done
+    // everything the last one allowed
+    private void recordLatency() {
+        if (lastReceivedNanos < 0)
+            return;
+
+        long micros = (System.nanoTime() - lastReceivedNanos) / 1000;
+        decisionLatency.record((int) Math.min(Integer.MAX_VALUE, micros));
+        lastReceivedNanos = -1;
+    }
+
+    private String quotedName(int row) {
+        if (row >= quotedNames.length) {
+            quotedNames = Arrays.copyOf(quotedNames, Math.max(row + 1, quotedNames.length * 2));
+        }
+        if (quotedNames[row] == null) quotedNames[row] = GSON.toJson(arrivals.table.name(row));
+        return quotedNames[row];
+    }
+
+    private String metrics(String type) {
+        RunState s = arrivals != null ? arrivals.state : null;
+        RunStatistics st = s != null ? s.statistics : new RunStatistics();
+        RunCounters c = s != null ? s.counters : new RunCounters();
+        long completed = st.waiting.count();
+
+        return String.format(Locale.ROOT, "{\"type\":\"%s\",\"engine\":%s,\"arrived\":%d,\"completed\":%d,"
+                        + "\"lastArrival\":%d,\"avgWaiting\":%.2f,\"avgTurnaround\":%.2f,\"avgResponse\":%.2f,"
+                        + "\"p99Waiting\":%d,\"p99Turnaround\":%d,\"p99Response\":%d,"
+                        + "\"decisions\":%d,\"contextSwitches\":%d,\"events\":%d,"
+                        + "\"decisionLatencyP50Us\":%d,\"decisionLatencyP99Us\":%d,\"decisionLatencyMaxUs\":%d}",
+                type, GSON.toJson(engineName), s != null ? s.table.size : 0, completed, lastArrival,
+                completed == 0 ? 0 : st.waiting.mean(), completed == 0 ? 0 : st.turnaround.mean(),
+                completed == 0 ? 0 : st.response.mean(),
+                st.waiting.percentile(99), st.turnaround.percentile(99), st.response.percentile(99),
+                decisions, c.contextSwitches, c.events,
+                decisionLatency.percentile(50), decisionLatency.percentile(99), decisionLatency.max());
+    }
+
+    static String error(String message) {
+        return "{\"type\":\"error\",\"message\":" + GSON.toJson(String.valueOf(message)) + "}";
+    }
+
+    // ---- selector thread ----
+
+    void readable() {
+        int n;
+        try {
+            n = channel.read(input);
+        } catch (IOException e) {
+            abandon();
+            return;
+        }
+
+        if (n < 0) {
+            eof = true;
+            key.interestOpsAnd(~SelectionKey.OP_READ);
+        }
+        if (!drain()) {
+            key.interestOpsAnd(~SelectionKey.OP_READ);
+        }
+    }
+
+    // Queue the stalled message and every complete line read so far, then the end of
+    // input if the client has closed its side. Returns false if the inbox filled up.
+    private boolean drain() {
+        if (stalled != null) {
+            if (!offer(stalled)) return false;
+            stalled = null;
+        }
+
+        input.flip();
+        try {
+            int start = input.position();
+            for (int i = start; i < input.limit(); i++) {
+                if (input.get(i) != '\n') continue;
+
+                String line = new String(input.array(), start, i - start, StandardCharsets.UTF_8).trim();
+                start = i + 1;
+                input.position(start);
+                if (line.isEmpty()) continue;
+
+                if (!offer(ServiceMessage.parse(line, service))) return false;
+            }
+
+            if (input.position() == 0 && input.limit() == input.capacity()) {
+                eof = true;
+                input.clear();
+                input.flip();
+                if (!offer(ServiceMessage.invalid("Message longer than " + MAX_LINE + " bytes"))) return false;
+            }
+
+            // The last line need not end in a newline
+            if (eof && input.hasRemaining()) {
+                String line = new String(input.array(), input.position(), input.remaining(), StandardCharsets.UTF_8).trim();
+                input.position(input.limit());
+                if (!line.isEmpty() && !offer(ServiceMessage.parse(line, service))) return false;
+            }
+        } finally {
+            input.compact();
+        }
+
+        if (eof && !endQueued) {
+            if (!offer(new ServiceMessage(ServiceMessage.Kind.END))) return false;
+            endQueued = true;
+        }
+        return true;
+    }
+
+    private boolean offer(ServiceMessage m) {
+        if (inbox.offer(m))
+            return true;
+
+        stalled = m;
+        paused.set(true);
+
+        // The engine may have emptied the inbox before seeing the flag
+        if (inbox.size() <= INBOX / 2 && paused.compareAndSet(true, false)) {
+            service.execute(this::resumeReading);
+        }
+        return false;
+    }
+
+    private void resumeReading() {
+        if (!key.isValid() || !drain())
+            return;
+        if (!eof) key.interestOpsOr(SelectionKey.OP_READ);
+    }
+
+    // The connection failed: stop the engine, whether it waits for input or output
+    void abandon() {
+        close();
+        output.fail();
+        inbox.clear();
+        inbox.offer(new ServiceMessage(ServiceMessage.Kind.CLOSED));
+    }
+
+    void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Closed either way
+        }
+    }
+}
+
+// Lines written by a session's engine thread and sent by whichever thread gets to them
+// first: the engine writes straight to the socket when it flushes, and if the socket
+// cannot take everything the selector sends the rest as it becomes writable. Once more
+// than MAX_PENDING bytes are waiting the engine blocks until the client catches up.
+class SessionOutput {
+
+    static final int FLUSH_BYTES = 64 * 1024;
+    static final int MAX_PENDING = 1024 * 1024;
+
+    private final SchedulerService service;
+    private final ServiceSession session;
+
+    // In write mode
+    private ByteBuffer pending = ByteBuffer.allocate(FLUSH_BYTES);
+
+    private boolean writeRequested;
+    private boolean finishing;
+    private boolean failed;
+
+    SessionOutput(SchedulerService service, ServiceSession session) {
+        this.service = service;
+        this.session = session;
+    }
+
+    synchronized void line(String json) {
+        byte[] bytes = (json + "\n").getBytes(StandardCharsets.UTF_8);
+        if (failed) throw closed();
+
+        if (pending.remaining() < bytes.length) {
+            ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes.length));
+            pending.flip();
+            grown.put(pending);
+            pending = grown;
+        }
+        pending.put(bytes);
+
+        if (pending.position() >= FLUSH_BYTES) flush();
+
+        while (pending.position() > MAX_PENDING) {
+            if (failed) throw closed();
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw closed();
+            }
+        }
+    }
+
+    // Write as much as the socket takes now, leaving the rest to the selector
+    synchronized void flush() {
+        if (failed) throw closed();
+        if (writeRequested || pending.position() == 0)
+            return;
+
+        try {
+            pending.flip();
+            session.channel.write(pending);
+            pending.compact();
+        } catch (IOException e) {
+            failed = true;
+            throw new UncheckedIOException(e);
+        }
+
+        if (pending.position() > 0) {
+            writeRequested = true;
+            service.execute(() -> {
+                if (session.key.isValid()) session.key.interestOpsOr(SelectionKey.OP_WRITE);
+            });
+        }
+    }
+
+    // Selector thread, the socket can take more
+    synchronized void writable() {
+        try {
+            pending.flip();
+            session.channel.write(pending);
+            pending.compact();
+        } catch (IOException e) {
+            session.abandon();
+            return;
+        }
+
+        if (pending.position() == 0) {
+            writeRequested = false;
+            session.key.interestOpsAnd(~SelectionKey.OP_WRITE);
+            if (finishing) session.close();
+        }
+        notifyAll();
+    }
+
+    // Close the connection once everything written has been sent
+    synchronized void finish() {
+        finishing = true;
+        if (!failed) {
+            try {
+                flush();
+            } catch (UncheckedIOException e) {
+                // Nothing more can be sent
+            }
+        }
+        if (failed || pending.position() == 0) session.close();
+    }
+
+    synchronized void fail() {
+        failed = true;
+        notifyAll();
+    }
+
+    private static UncheckedIOException closed() {
+        return new UncheckedIOException(new IOException("Connection closed"));
+    }
+}
@@ -0,0 +1,154 @@
+package CPUSchedulers;
+
+import java.util.*;
+import java.io.PrintStream;
+
+// ================================
+// Run statistics
+// ================================
+
+// Fixed-memory histogram of non-negative int values in the style of HdrHistogram.
+// Values below 2^PRECISION_BITS are counted exactly; above that each power of two is
+// split into 2^(PRECISION_BITS - 1) equal buckets, so a percentile is off by less than
+// 1 / 2^(PRECISION_BITS - 1) of its value. Count, sum, min and max are exact.
+class LatencyHistogram {
+
+    private static final int PRECISION_BITS = 8;
+    private static final int SUB_BUCKETS = 1 << PRECISION_BITS;
+    private static final int HALF = SUB_BUCKETS / 2;
+
+    private final long[] counts = new long[SUB_BUCKETS + (31 - PRECISION_BITS) * HALF];
+
+    private long count;
+    private long sum;
+    private int min = Integer.MAX_VALUE;
+    private int max = Integer.MIN_VALUE;
+
+    // Negative values only show up in min and mean, they are bucketed as 0
+    void record(int value) {
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+
+        counts[index(Math.max(0, value))]++;
+    }
+
+    long count() {
+        return count;
+    }
+
+    long sum() {
+        return sum;
+    }
+
+    int min() {
+        return count == 0 ? 0 : min;
+    }
+
+    int max() {
+        return count == 0 ? 0 : max;
+    }
+
+    double mean() {
+        return (double) sum / count;
+    }
+
+    void save(SnapshotWriter out) {
+        out.putLongs(counts);
+        out.putLongs(new long[]{count, sum, min, max});
+    }
+
+    void restore(SnapshotReader in) {
+        long[] saved = in.getLongs();
+        System.arraycopy(saved, 0, counts, 0, counts.length);
+
+        long[] totals = in.getLongs();
+        count = totals[0];
+        sum = totals[1];
+        min = (int) totals[2];
+        max = (int) totals[3];
+    }
+
+    // Smallest recorded value (up to bucket precision) such that the given percentage
+    // of all values are at or below it
+    int percentile(double percent) {
+        if (count == 0)
+            return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(percent / 100.0 * count));
+        long seen = 0;
+
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return (int) Math.max(min(), Math.min(max, highestEquivalent(i)));
+            }
+        }
+        return max;
+    }
+
+    private static int index(int value) {
+        if (value < SUB_BUCKETS)
+            return value;
+
+        int shift = 31 - Integer.numberOfLeadingZeros(value) - (PRECISION_BITS - 1);
+        return SUB_BUCKETS + (shift - 1) * HALF + ((value >>> shift) - HALF);
+    }
+
+    // Largest value that falls into the bucket at index i
+    private static long highestEquivalent(int i) {
+        if (i < SUB_BUCKETS)
+            return i;
+
+        int shift = (i - SUB_BUCKETS) / HALF + 1;
+        long mantissa = HALF + (i - SUB_BUCKETS) % HALF;
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
+
+// Waiting, turnaround and response time distributions of a run, updated as each
+// process completes. Response time is the wait until a process first gets the CPU.
+class RunStatistics {
+    final LatencyHistogram waiting = new LatencyHistogram();
+    final LatencyHistogram turnaround = new LatencyHistogram();
+    final LatencyHistogram response = new LatencyHistogram();
+
+    void record(int waitingTime, int turnaroundTime, int responseTime) {
+        waiting.record(waitingTime);
+        turnaround.record(turnaroundTime);
+        response.record(responseTime);
+    }
+
+    void save(SnapshotWriter out) {
+        waiting.save(out);
+        turnaround.save(out);
+        response.save(out);
+    }
+
+    void restore(SnapshotReader in) {
+        waiting.restore(in);
+        turnaround.restore(in);
+        response.restore(in);
+    }
+
+    // Set the averages of the result, rounded to two decimals, and attach the statistics
+    void fill(SchedulerResult r) {
+        r.averageWaitingTime = Math.round(waiting.mean() * 100.0) / 100.0;
+        r.averageTurnaroundTime = Math.round(turnaround.mean() * 100.0) / 100.0;
+        r.statistics = this;
+    }
+
+    void print(PrintStream out) {
+        print(out, "Waiting Time", waiting);
+        print(out, "Turnaround Time", turnaround);
+        print(out, "Response Time", response);
+    }
+
+    private static void print(PrintStream out, String label, LatencyHistogram h) {
+        out.println(String.format(Locale.ROOT,
+                "%-15s | mean = %.2f | min = %d | max = %d | p50 = %d | p90 = %d | p99 = %d | p99.9 = %d",
+                label, h.mean(), h.min(), h.max(),
+                h.percentile(50), h.percentile(90), h.percentile(99), h.percentile(99.9)));
+    }
+}
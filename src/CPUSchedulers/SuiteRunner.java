@@ -0,0 +1,168 @@
+package CPUSchedulers;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+import java.io.*;
+import java.nio.file.*;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+// ================================
+// Parallel test-suite runner
+// ================================
+
+// Outcome of one (file, algorithm) pair, with the report it would have printed
+class CaseResult {
+    final Path file;
+    final String algorithm;
+    final boolean passed;
+    final String output;
+
+    CaseResult(Path file, String algorithm, boolean passed, String output) {
+        this.file = file;
+        this.algorithm = algorithm;
+        this.passed = passed;
+        this.output = output;
+    }
+}
+
+// Discovers every *.json test case under a directory and runs it on a bounded thread
+// pool, with either the table-based or the reference engines. Each file is read and
+// parsed by one task, which then submits one task per (file, algorithm) pair. Every
+// task writes its report into its own buffer; the reports and the summary are printed
+// in path and algorithm order once all are done.
+class SuiteRunner {
+
+    static boolean run(Path dir, int threads, boolean reference) throws Exception {
+
+        long start = System.nanoTime();
+
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            files = walk.filter(f -> f.toString().endsWith(".json"))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        List<Future<List<Future<CaseResult>>>> parsed = new ArrayList<>();
+
+        try {
+            // A parse task only submits its cases, it never waits on them, so it cannot
+            // hold up a thread the cases need
+            for (Path file : files) {
+                parsed.add(pool.submit(() -> {
+                    List<Future<CaseResult>> cases = new ArrayList<>();
+                    for (Callable<CaseResult> task : tasksFor(file, reference)) {
+                        cases.add(pool.submit(task));
+                    }
+                    return cases;
+                }));
+            }
+
+            List<CaseResult> results = new ArrayList<>();
+            for (Future<List<Future<CaseResult>>> file : parsed) {
+                for (Future<CaseResult> f : file.get()) {
+                    results.add(f.get());
+                }
+            }
+
+            printReport(results, files.size(), System.nanoTime() - start);
+
+            for (CaseResult r : results) {
+                if (!r.passed) return false;
+            }
+            return true;
+
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // One task per algorithm with an expected output in the file. Files that cannot be
+    // parsed turn into a single failing task so they still show up in the summary.
+    static List<Callable<CaseResult>> tasksFor(Path file, boolean reference) {
+        String suffix = reference ? SchedulerRegistry.REFERENCE : "";
+        List<Callable<CaseResult>> tasks = new ArrayList<>();
+        Gson gson = new Gson();
+
+        JsonObject json;
+        try {
+            json = JsonParser.parseString(Files.readString(file)).getAsJsonObject();
+        } catch (Exception e) {
+            tasks.add(() -> failure(file, "-", e));
+            return tasks;
+        }
+
+        JsonObject expected = json.getAsJsonObject("expectedOutput");
+
+        // AG test cases carry a single expected output without per-algorithm keys
+        if (expected != null && expected.has("executionOrder")) {
+            AGTestCase tc = gson.fromJson(json, AGTestCase.class);
+            Workload workload = tc.input.toWorkload();
+
+            tasks.add(() -> check(file, "AG" + suffix, workload,
+                    tc.expectedOutput.executionOrder, tc.expectedOutput.processResults));
+            return tasks;
+        }
+
+        TestCase tc = gson.fromJson(json, TestCase.class);
+        Workload workload = tc.input.toWorkload();
+
+        for (String algorithm : TestRunner.ALGORITHMS) {
+            SchedulerResult exp = tc.expectedOutput == null ? null : tc.expectedOutput.get(algorithm);
+            if (exp == null) continue;
+
+            tasks.add(() -> check(file, algorithm + suffix, workload, exp.executionOrder, exp.processResults));
+        }
+        return tasks;
+    }
+
+    static CaseResult check(Path file, String algorithm, Workload workload,
+                            List<String> expectedOrder, List<ProcessResult> expectedResults) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(buffer, true);
+
+        try {
+            SchedulerResult actual = ResultCache.cached(algorithm, workload);
+            boolean passed = TestRunner.report(out, algorithm, actual, expectedOrder, expectedResults);
+            return new CaseResult(file, algorithm, passed, buffer.toString());
+        } catch (Exception e) {
+            return failure(file, algorithm, e);
+        }
+    }
+
+    static CaseResult failure(Path file, String algorithm, Exception e) {
+        return new CaseResult(file, algorithm, false, "[" + algorithm + "] : ERROR " + e + "\n");
+    }
+
+    static void printReport(List<CaseResult> results, int fileCount, long elapsedNanos) {
+        Path lastFile = null;
+        int passed = 0;
+        List<CaseResult> failed = new ArrayList<>();
+
+        for (CaseResult r : results) {
+            if (!r.file.equals(lastFile)) {
+                System.out.println("\n=== " + r.file + " ===");
+                lastFile = r.file;
+            }
+            System.out.print(r.output);
+
+            if (r.passed) passed++;
+            else failed.add(r);
+        }
+
+        System.out.println("\n====================================================================");
+        System.out.println("Files: " + fileCount + " | Cases: " + results.size()
+                + " | Passed: " + passed + " | Failed: " + failed.size());
+        for (CaseResult r : failed) {
+            System.out.println("FAILED " + r.file + " [" + r.algorithm + "]");
+        }
+        System.out.println("Elapsed: " + elapsedNanos / 1_000_000 + " ms");
+        if (ResultCache.shared() != null) {
+            ResultCache.shared().printSummary(System.out);
+        }
+    }
+}
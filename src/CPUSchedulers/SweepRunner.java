@@ -0,0 +1,240 @@
+package CPUSchedulers;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.io.*;
+import java.nio.file.*;
+
+// ================================
+// Parameter sweep
+// ================================
+
+// Counts CPU segments and the switches between processes, without keeping the timeline
+class SwitchCounter implements TimelineSink {
+    int segments;
+    int switches;
+    int lastEnd;
+
+    private int lastRow = -1;
+
+    public void segment(int row, int start, int end, SegmentEnd reason) {
+        segments++;
+        if (row != lastRow && lastRow >= 0) switches++;
+        lastRow = row;
+        lastEnd = end;
+    }
+}
+
+// One grid point: an engine with a parameter set. Parameters the engine does not read
+// are left at -1 (or NaN for the AG quantum scale) and are not swept.
+class SweepPoint {
+    final String engine;
+    final int contextSwitch;
+    final int rrQuantum;
+    final int agingInterval;
+    final double agQuantumScale;
+
+    double averageWaitingTime;
+    double averageTurnaroundTime;
+    int p99Waiting;
+    int p99Turnaround;
+    int p99Response;
+    int switches;
+    int makespan;
+
+    SweepPoint(String engine, int contextSwitch, int rrQuantum, int agingInterval, double agQuantumScale) {
+        this.engine = engine;
+        this.contextSwitch = contextSwitch;
+        this.rrQuantum = rrQuantum;
+        this.agingInterval = agingInterval;
+        this.agQuantumScale = agQuantumScale;
+    }
+}
+
+// Ranges of each parameter, parsed from "a..b", "a..b:step" or "a,b,c"
+class SweepGrid {
+    int[] contextSwitch;
+    int[] rrQuantum;
+    int[] agingInterval;
+    double[] agQuantumScale = {1.0};
+
+    // Defaults to the single values of the workload's own parameters
+    SweepGrid(SchedulerConfig config) {
+        contextSwitch = new int[]{config.contextSwitch};
+        rrQuantum = new int[]{config.rrQuantum};
+        agingInterval = new int[]{config.agingInterval};
+    }
+
+    static int[] ints(String spec) {
+        double[] values = doubles(spec);
+        int[] result = new int[values.length];
+        for (int i = 0; i < values.length; i++) result[i] = (int) values[i];
+        return result;
+    }
+
+    static double[] doubles(String spec) {
+        try {
+            int range = spec.indexOf("..");
+            if (range < 0) {
+                return Arrays.stream(spec.split(",")).mapToDouble(Double::parseDouble).toArray();
+            }
+
+            String[] bounds = spec.substring(range + 2).split(":");
+            double from = Double.parseDouble(spec.substring(0, range));
+            double to = Double.parseDouble(bounds[0]);
+            double step = bounds.length > 1 ? Double.parseDouble(bounds[1]) : 1;
+            if (step <= 0 || to < from) throw new NumberFormatException();
+
+            int n = (int) Math.floor((to - from) / step + 1e-9) + 1;
+            double[] values = new double[n];
+            for (int i = 0; i < n; i++) values[i] = from + i * step;
+            return values;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Bad range: " + spec + " (expected a..b, a..b:step or a,b,c)");
+        }
+    }
+
+    // Grid points of an engine, over the parameters it reads
+    List<SweepPoint> points(String engine) {
+        List<SweepPoint> points = new ArrayList<>();
+        switch (SchedulerRegistry.algorithm(engine)) {
+            case "SJF":
+                for (int cs : contextSwitch) points.add(new SweepPoint(engine, cs, -1, -1, Double.NaN));
+                break;
+            case "RR":
+                for (int cs : contextSwitch)
+                    for (int q : rrQuantum) points.add(new SweepPoint(engine, cs, q, -1, Double.NaN));
+                break;
+            case "Priority":
+                for (int cs : contextSwitch)
+                    for (int aging : agingInterval) points.add(new SweepPoint(engine, cs, -1, aging, Double.NaN));
+                break;
+            case "AG":
+                for (double scale : agQuantumScale) points.add(new SweepPoint(engine, -1, -1, -1, scale));
+                break;
+            default:
+                for (int cs : contextSwitch)
+                    for (int q : rrQuantum)
+                        for (int aging : agingInterval)
+                            for (double scale : agQuantumScale)
+                                points.add(new SweepPoint(engine, cs, q, aging, scale));
+        }
+        return points;
+    }
+}
+
+// Runs every grid point of the given engines over one workload on a ForkJoinPool.
+// The workload is parsed and sorted by arrival once, and the table with the AG quanta
+// scaled is built once per scale; every point shares them and only allocates its own
+// run state. Points report statistics only, and count switches instead of keeping the
+// timeline.
+class SweepRunner {
+
+    static List<SweepPoint> run(Workload workload, List<String> engines, SweepGrid grid, int threads)
+            throws InterruptedException, ExecutionException {
+
+        ProcessTable table = workload.table;
+        table.arrivalOrder();
+
+        Map<Double, ProcessTable> scaled = new HashMap<>();
+        List<SweepPoint> points = new ArrayList<>();
+        for (String engine : engines) {
+            // Fail on an unknown engine before anything runs
+            SchedulerRegistry.create(engine);
+            for (SweepPoint point : grid.points(engine)) {
+                if (!Double.isNaN(point.agQuantumScale) && !scaled.containsKey(point.agQuantumScale)) {
+                    scaled.put(point.agQuantumScale, point.agQuantumScale == 1.0
+                            ? table
+                            : table.withQuantaScaled(point.agQuantumScale));
+                }
+                points.add(point);
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(Math.max(1, threads));
+        try {
+            List<Callable<SweepPoint>> tasks = new ArrayList<>();
+            for (SweepPoint point : points) {
+                ProcessTable t = Double.isNaN(point.agQuantumScale) ? table : scaled.get(point.agQuantumScale);
+                tasks.add(() -> simulate(t, workload.config, point));
+            }
+
+            for (Future<SweepPoint> f : pool.invokeAll(tasks)) {
+                f.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        return points;
+    }
+
+    static SweepPoint simulate(ProcessTable table, SchedulerConfig base, SweepPoint point) {
+        SchedulerConfig config = new SchedulerConfig(
+                point.contextSwitch < 0 ? base.contextSwitch : point.contextSwitch,
+                point.rrQuantum < 0 ? base.rrQuantum : point.rrQuantum,
+                point.agingInterval < 0 ? base.agingInterval : point.agingInterval);
+        config.processResults = false;
+
+        SwitchCounter counter = new SwitchCounter();
+        SchedulerResult result = SchedulerRegistry.create(point.engine)
+                .run(ArrivalCursor.over(table), config, counter);
+
+        point.averageWaitingTime = result.averageWaitingTime;
+        point.averageTurnaroundTime = result.averageTurnaroundTime;
+        point.p99Waiting = result.statistics.waiting.percentile(99);
+        point.p99Turnaround = result.statistics.turnaround.percentile(99);
+        point.p99Response = result.statistics.response.percentile(99);
+        point.switches = counter.switches;
+        point.makespan = counter.lastEnd;
+        return point;
+    }
+
+    static final String[] COLUMNS = {
+            "engine", "contextSwitch", "rrQuantum", "agingInterval", "agQuantumScale",
+            "avgWaiting", "avgTurnaround", "p99Waiting", "p99Turnaround", "p99Response", "switches", "makespan"
+    };
+
+    // Parameters an engine does not read are written as "-"
+    static String[] row(SweepPoint p) {
+        return new String[]{
+                p.engine,
+                p.contextSwitch < 0 ? "-" : String.valueOf(p.contextSwitch),
+                p.rrQuantum < 0 ? "-" : String.valueOf(p.rrQuantum),
+                p.agingInterval < 0 ? "-" : String.valueOf(p.agingInterval),
+                Double.isNaN(p.agQuantumScale) ? "-" : String.valueOf(p.agQuantumScale),
+                String.valueOf(p.averageWaitingTime),
+                String.valueOf(p.averageTurnaroundTime),
+                String.valueOf(p.p99Waiting),
+                String.valueOf(p.p99Turnaround),
+                String.valueOf(p.p99Response),
+                String.valueOf(p.switches),
+                String.valueOf(p.makespan)
+        };
+    }
+
+    static void writeCsv(List<SweepPoint> points, Path out) throws IOException {
+        try (PrintWriter w = new PrintWriter(Files.newBufferedWriter(out))) {
+            w.println(String.join(",", COLUMNS));
+            for (SweepPoint p : points) w.println(String.join(",", row(p)));
+        }
+    }
+
+    static void printTable(List<SweepPoint> points, PrintStream out) {
+        List<String[]> rows = new ArrayList<>();
+        rows.add(COLUMNS);
+        for (SweepPoint p : points) rows.add(row(p));
+
+        int[] width = new int[COLUMNS.length];
+        for (String[] r : rows)
+            for (int i = 0; i < r.length; i++) width[i] = Math.max(width[i], r[i].length());
+
+        for (String[] r : rows) {
+            StringBuilder line = new StringBuilder();
+            for (int i = 0; i < r.length; i++) {
+                if (i > 0) line.append(" | ");
+                line.append(String.format(i == 0 ? "%-" + width[i] + "s" : "%" + width[i] + "s", r[i]));
+            }
+            out.println(line);
+        }
+    }
+}
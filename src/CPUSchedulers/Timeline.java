@@ -0,0 +1,214 @@
+package CPUSchedulers;
+
+import java.util.*;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+
+// ================================
+// CPU timeline
+// ================================
+
+// Why a process left the CPU at the end of a segment
+enum SegmentEnd {
+    COMPLETED,
+    QUANTUM_EXPIRED,
+    PREEMPTED,
+    PRIORITY_PREEMPT,
+    SJF_PREEMPT
+}
+
+// Receives the CPU timeline of a run, one segment per dispatch: the process in the
+// given table row held the CPU from start to end, then left it for the given reason.
+// Segments arrive in time order; context switches and idle time fall between them.
+interface TimelineSink {
+    void segment(int row, int start, int end, SegmentEnd reason);
+}
+
+// Keeps the segments in memory as parallel primitive columns, one entry per run of a
+// process on the CPU rather than per time unit or per scheduling decision
+class RunLengthTimeline implements TimelineSink {
+
+    private static final SegmentEnd[] REASONS = SegmentEnd.values();
+
+    private final ProcessTable table;
+
+    private int[] rows = new int[16];
+    private int[] starts = new int[16];
+    private int[] ends = new int[16];
+    private byte[] reasons = new byte[16];
+    private int size;
+
+    RunLengthTimeline(ProcessTable table) {
+        this.table = table;
+    }
+
+    public void segment(int row, int start, int end, SegmentEnd reason) {
+        if (size == rows.length) {
+            int capacity = size * 2;
+            rows = Arrays.copyOf(rows, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            reasons = Arrays.copyOf(reasons, capacity);
+        }
+
+        rows[size] = row;
+        starts[size] = start;
+        ends[size] = end;
+        reasons[size] = (byte) reason.ordinal();
+        size++;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int row(int i) {
+        return rows[i];
+    }
+
+    int start(int i) {
+        return starts[i];
+    }
+
+    int end(int i) {
+        return ends[i];
+    }
+
+    SegmentEnd reason(int i) {
+        return REASONS[reasons[i]];
+    }
+
+    void save(SnapshotWriter out) {
+        out.putInts(rows, size);
+        out.putInts(starts, size);
+        out.putInts(ends, size);
+        out.putBytes(reasons, size);
+    }
+
+    // Into an empty timeline
+    void restore(SnapshotReader in) {
+        rows = in.getInts();
+        starts = in.getInts();
+        ends = in.getInts();
+        reasons = in.getBytes();
+        size = rows.length;
+
+        int capacity = Math.max(16, size);
+        rows = Arrays.copyOf(rows, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        reasons = Arrays.copyOf(reasons, capacity);
+    }
+
+    // Process names in the order they ran. Unless everyDispatch is set, consecutive
+    // segments of processes with the same name are listed once.
+    List<String> executionOrder(boolean everyDispatch) {
+        List<String> order = new ArrayList<>();
+        int lastName = -1;
+
+        for (int i = 0; i < size; i++) {
+            int name = table.nameId[rows[i]];
+            if (everyDispatch || name != lastName) {
+                order.add(table.name(rows[i]));
+                lastName = name;
+            }
+        }
+        return order;
+    }
+}
+
+// Streams segments to a CSV file (process,start,end,reason) through a buffered
+// channel, so the memory used does not grow with the length of the run
+class FileTimelineSink implements TimelineSink, Closeable {
+
+    private final ProcessTable table;
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+
+    // Encoded names by name id, filled as processes show up
+    private byte[][] names = new byte[16][];
+    private final byte[][] reasons;
+
+    private final byte[] digits = new byte[11];
+
+    FileTimelineSink(Path path, ProcessTable table) throws IOException {
+        this.table = table;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+
+        SegmentEnd[] values = SegmentEnd.values();
+        reasons = new byte[values.length][];
+        for (SegmentEnd r : values) reasons[r.ordinal()] = r.name().getBytes(StandardCharsets.US_ASCII);
+
+        put("process,start,end,reason\n".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public void segment(int row, int start, int end, SegmentEnd reason) {
+        try {
+            put(name(row));
+            put((byte) ',');
+            putInt(start);
+            put((byte) ',');
+            putInt(end);
+            put((byte) ',');
+            put(reasons[reason.ordinal()]);
+            put((byte) '\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private byte[] name(int row) {
+        int id = table.nameId[row];
+        if (id >= names.length) names = Arrays.copyOf(names, Math.max(id + 1, names.length * 2));
+        if (names[id] == null) names[id] = String.valueOf(table.name(row)).getBytes(StandardCharsets.UTF_8);
+        return names[id];
+    }
+
+    private void putInt(int value) throws IOException {
+        long v = value;
+        if (v < 0) {
+            put((byte) '-');
+            v = -v;
+        }
+
+        int n = 0;
+        do {
+            digits[n++] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v > 0);
+
+        while (n > 0) put(digits[--n]);
+    }
+
+    private void put(byte b) throws IOException {
+        if (!buffer.hasRemaining()) flush();
+        buffer.put(b);
+    }
+
+    private void put(byte[] bytes) throws IOException {
+        for (int off = 0; off < bytes.length; ) {
+            if (!buffer.hasRemaining()) flush();
+            int n = Math.min(buffer.remaining(), bytes.length - off);
+            buffer.put(bytes, off, n);
+            off += n;
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+}
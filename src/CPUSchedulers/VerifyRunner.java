@@ -0,0 +1,221 @@
+package CPUSchedulers;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+// ================================
+// Differential verification
+// ================================
+
+// Runs every registered engine on seeded random workloads and checks it against the
+// reference engine of its algorithm and against itself:
+//  - execution order, per-process results, AG quantum histories and averages match the
+//    reference engine (see SchedulerRegistry.reference)
+//  - a streamed run matches a run over a table of the same processes
+//  - runs of every engine at once on one shared workload match sequential runs
+//  - the timeline is in time order and each process's segments add up to its burst,
+//    the last one ending at its completion
+//  - histogram percentiles of waiting and turnaround time are within bucket precision
+//    of the exact ones, count, min and max are exact
+class VerifyRunner {
+
+    // Mismatches printed before the rest are only counted
+    private static final int MAX_REPORTED = 20;
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final List<String> engines = SchedulerRegistry.names();
+    private final ExecutorService pool;
+
+    private int mismatches;
+
+    private VerifyRunner(int threads) {
+        this.pool = Executors.newFixedThreadPool(Math.max(1, threads));
+    }
+
+    static boolean run(int cases, long seed, int threads) throws Exception {
+        long start = System.nanoTime();
+        VerifyRunner runner = new VerifyRunner(threads);
+
+        try {
+            for (int i = 0; i < cases; i++) {
+                runner.check(seed + i);
+            }
+        } finally {
+            runner.pool.shutdownNow();
+        }
+
+        System.out.println("Cases: " + cases + " (seeds " + seed + ".." + (seed + cases - 1) + ")"
+                + " | Engines: " + runner.engines + " | Mismatches: " + runner.mismatches);
+        System.out.println("Elapsed: " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        return runner.mismatches == 0;
+    }
+
+    // Small workloads hit ties, idle gaps and context switches at arrivals; every
+    // eighth one is large enough for waits beyond the exact histogram buckets
+    static List<Process> randomProcesses(Random r, boolean large) {
+        int n = large ? 100 + r.nextInt(200) : 1 + r.nextInt(12);
+        int maxArrival = large ? 400 : 20;
+        int maxBurst = large ? 20 : 10;
+
+        List<Process> processes = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int priority = r.nextInt(10) + (r.nextInt(5) == 0 ? 0 : 1);
+            processes.add(new Process("P" + i, r.nextInt(maxArrival + 1), 1 + r.nextInt(maxBurst),
+                    priority, 1 + r.nextInt(10)));
+        }
+
+        return processes;
+    }
+
+    private void check(long seed) throws Exception {
+        Random r = new Random(seed);
+        List<Process> input = randomProcesses(r, seed % 8 == 7);
+        Workload workload = new Workload(input, new SchedulerConfig(r.nextInt(4), 1 + r.nextInt(6), r.nextInt(7)));
+
+        // A stream delivers rows in arrival order, ties between rows are broken by row
+        // number, so it is compared with a table built in that order
+        List<Process> sorted = new ArrayList<>(input);
+        sorted.sort(Comparator.comparingInt(p -> p.arrivalTime));
+
+        Map<String, SchedulerResult> sequential = new LinkedHashMap<>();
+        for (String name : engines) {
+            sequential.put(name, SchedulerRegistry.create(name).run(workload));
+        }
+
+        for (String name : engines) {
+            String context = "seed " + seed + " [" + name + "]";
+            SchedulerResult result = sequential.get(name);
+
+            String reference = SchedulerRegistry.reference(name);
+            if (reference != null) {
+                compare(context + " reference", describe(sequential.get(reference)), describe(result));
+            }
+
+            compare(context + " streamed",
+                    describe(SchedulerRegistry.create(name).run(new Workload(sorted, workload.config))),
+                    describe(SchedulerRegistry.create(name).run(streamed(sorted), workload.config)));
+
+            checkTimeline(context, workload.table, result);
+            checkStatistics(context, result);
+        }
+
+        // Every engine twice, all at once on the shared table
+        List<Future<SchedulerResult>> futures = new ArrayList<>();
+        for (int copy = 0; copy < 2; copy++) {
+            for (String name : engines) {
+                futures.add(pool.submit(() -> SchedulerRegistry.create(name).run(workload)));
+            }
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            String name = engines.get(i % engines.size());
+            compare("seed " + seed + " [" + name + "] parallel",
+                    describe(sequential.get(name)), describe(futures.get(i).get()));
+        }
+    }
+
+    // Processes sorted by arrival, pulled one at a time
+    static ArrivalCursor streamed(List<Process> sorted) {
+        Iterator<Process> it = sorted.iterator();
+        return new ArrivalCursor(() -> it.hasNext() ? it.next() : null);
+    }
+
+    private void checkTimeline(String context, ProcessTable t, SchedulerResult result) {
+        RunLengthTimeline timeline = result.timeline;
+        int[] ran = new int[t.size];
+        int[] lastEnd = new int[t.size];
+        int previousEnd = Integer.MIN_VALUE;
+
+        Map<String, Integer> rows = new HashMap<>();
+        for (int row = 0; row < t.size; row++) rows.put(t.name(row), row);
+
+        for (int i = 0; i < timeline.size(); i++) {
+            int row = timeline.row(i);
+            int start = timeline.start(i);
+            int end = timeline.end(i);
+
+            if (start < previousEnd || end < start || start < t.arrival[row]) {
+                mismatch(context + " timeline: segment " + i + " of " + t.name(row)
+                        + " [" + start + ", " + end + ") after one ending at " + previousEnd);
+                return;
+            }
+            previousEnd = end;
+            ran[row] += end - start;
+            lastEnd[row] = end;
+        }
+
+        for (ProcessResult pr : result.processResults) {
+            int row = rows.get(pr.name);
+            if (ran[row] != t.burst[row] || lastEnd[row] != t.arrival[row] + pr.turnaroundTime) {
+                mismatch(context + " timeline: " + pr.name + " ran " + ran[row] + " of " + t.burst[row]
+                        + " until " + lastEnd[row] + ", completed at " + (t.arrival[row] + pr.turnaroundTime));
+            }
+        }
+    }
+
+    private void checkStatistics(String context, SchedulerResult result) {
+        int n = result.processResults.size();
+        int[] waiting = new int[n];
+        int[] turnaround = new int[n];
+        for (int i = 0; i < n; i++) {
+            waiting[i] = result.processResults.get(i).waitingTime;
+            turnaround[i] = result.processResults.get(i).turnaroundTime;
+        }
+
+        checkHistogram(context + " waiting", waiting, result.statistics.waiting);
+        checkHistogram(context + " turnaround", turnaround, result.statistics.turnaround);
+
+        if (result.statistics.response.count() != n) {
+            mismatch(context + " response: " + result.statistics.response.count() + " values for " + n + " processes");
+        }
+    }
+
+    private void checkHistogram(String context, int[] values, LatencyHistogram h) {
+        int[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int n = sorted.length;
+
+        if (h.count() != n || h.min() != sorted[0] || h.max() != sorted[n - 1]) {
+            mismatch(context + ": count / min / max " + h.count() + " / " + h.min() + " / " + h.max()
+                    + ", exact " + n + " / " + sorted[0] + " / " + sorted[n - 1]);
+            return;
+        }
+
+        for (double p : PERCENTILES) {
+            int exact = sorted[(int) Math.max(1, Math.ceil(p / 100.0 * n)) - 1];
+            int reported = h.percentile(p);
+
+            // A bucket holds values within 1/128 of each other; it reports its highest
+            if (reported < exact || reported - exact > Math.max(0, exact) / 128) {
+                mismatch(context + ": p" + p + " = " + reported + ", exact " + exact);
+            }
+        }
+    }
+
+    private void compare(String context, String expected, String actual) {
+        if (!expected.equals(actual)) {
+            mismatch(context + "\n  expected " + expected + "\n  actual   " + actual);
+        }
+    }
+
+    private void mismatch(String message) {
+        if (++mismatches <= MAX_REPORTED) {
+            System.out.println("MISMATCH " + message);
+        }
+    }
+
+    static String describe(SchedulerResult r) {
+        return r.executionOrder + " | " + results(r.processResults)
+                + " | " + r.averageWaitingTime + " " + r.averageTurnaroundTime;
+    }
+
+    private static String results(List<ProcessResult> results) {
+        StringBuilder sb = new StringBuilder();
+        for (ProcessResult pr : results) {
+            sb.append(pr.name).append(' ').append(pr.waitingTime).append('/').append(pr.turnaroundTime);
+            if (pr.quantumHistory != null) sb.append(' ').append(pr.quantumHistory);
+            sb.append(", ");
+        }
+        return sb.toString();
+    }
+}
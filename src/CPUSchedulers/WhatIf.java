@@ -0,0 +1,567 @@
+package CPUSchedulers;
+
+import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+import java.io.PrintStream;
+
+// ================================
+// What-if analysis
+// ================================
+//
+// Answers questions like "what if this process arrived at 500, or had a burst of 40"
+// against an otherwise fixed workload without simulating all of it again. A baseline
+// run keeps small snapshots at arrival boundaries. A question replays the engine on the
+// edited workload from the last snapshot taken before any edited process could have
+// been seen, and stops as soon as the replay is back in a state the baseline was in:
+// from there on both runs are the same, so every process still to complete does so as
+// in the baseline.
+//
+// A snapshot is taken at the top of the engine's loop, where every process that has
+// arrived by then has been polled and nothing later has been. The engines only look
+// ahead at the next arrival to decide how long to run before checking again, which
+// splits the same schedule at different points, so a snapshot taken at time T holds
+// for any workload that differs from the baseline only in processes arriving after T,
+// before and after the edit.
+
+// New input of one process, starting from what the table holds
+class ProcessEdit {
+    final int row;
+    int arrival;
+    int burst;
+    int priority;
+    int quantum;
+
+    ProcessEdit(ProcessTable t, int row) {
+        this.row = row;
+        arrival = t.arrival[row];
+        burst = t.burst[row];
+        priority = t.priority[row];
+        quantum = t.quantum[row];
+    }
+
+    // "<name> arrival=500 burst=40", processes separated by ';'. A process is named as
+    // in the workload, the first one of that name, or by its row as #<row>.
+    static List<ProcessEdit> parse(ProcessTable t, Map<String, Integer> rows, String question) {
+        List<ProcessEdit> edits = new ArrayList<>();
+        for (String part : question.split(";")) {
+            String[] words = part.trim().split("\\s+");
+            if (words[0].isEmpty()) continue;
+
+            Integer row = words[0].startsWith("#") ? parseRow(words[0].substring(1), t.size) : rows.get(words[0]);
+            if (row == null) throw new IllegalArgumentException("No process " + words[0]);
+            if (words.length == 1) throw new IllegalArgumentException("Nothing to change for " + words[0]);
+
+            ProcessEdit e = new ProcessEdit(t, row);
+            for (int i = 1; i < words.length; i++) {
+                String[] field = words[i].split("=", 2);
+                int value;
+                try {
+                    value = Integer.parseInt(field.length == 2 ? field[1] : "");
+                } catch (NumberFormatException ex) {
+                    throw new IllegalArgumentException("Expected <field>=<number>, got " + words[i]);
+                }
+                if (value < 0) throw new IllegalArgumentException("Negative value in " + words[i]);
+
+                switch (field[0]) {
+                    case "arrival": e.arrival = value; break;
+                    case "burst": e.burst = value; break;
+                    case "priority": e.priority = value; break;
+                    case "quantum": e.quantum = value; break;
+                    default:
+                        throw new IllegalArgumentException("Unknown field " + field[0]
+                                + " (available: arrival, burst, priority, quantum)");
+                }
+            }
+            edits.add(e);
+        }
+        if (edits.isEmpty()) throw new IllegalArgumentException("Empty question");
+        return edits;
+    }
+
+    private static Integer parseRow(String text, int size) {
+        try {
+            int row = Integer.parseInt(text);
+            return row >= 0 && row < size ? row : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    String describe(ProcessTable t) {
+        StringBuilder sb = new StringBuilder(t.name(row));
+        if (arrival != t.arrival[row]) sb.append(" arrival=").append(arrival);
+        if (burst != t.burst[row]) sb.append(" burst=").append(burst);
+        if (priority != t.priority[row]) sb.append(" priority=").append(priority);
+        if (quantum != t.quantum[row]) sb.append(" quantum=").append(quantum);
+        return sb.toString();
+    }
+}
+
+// Waiting, turnaround and response time of every process, indexed by row
+class ProcessOutcomes {
+    final int[] waiting;
+    final int[] turnaround;
+    final int[] response;
+
+    ProcessOutcomes(int size) {
+        waiting = new int[size];
+        turnaround = new int[size];
+        response = new int[size];
+    }
+
+    private ProcessOutcomes(ProcessOutcomes base) {
+        waiting = base.waiting.clone();
+        turnaround = base.turnaround.clone();
+        response = base.response.clone();
+    }
+
+    ProcessOutcomes copy() {
+        return new ProcessOutcomes(this);
+    }
+
+    void record(RunState s, int row, int time, int waitingTime) {
+        int arrival = s.table.arrival[row];
+        waiting[row] = waitingTime;
+        turnaround[row] = time - arrival;
+        response[row] = s.firstRun[row] - arrival;
+    }
+
+    boolean differs(ProcessOutcomes other, int row) {
+        return waiting[row] != other.waiting[row] || turnaround[row] != other.turnaround[row]
+                || response[row] != other.response[row];
+    }
+
+    RunStatistics statistics() {
+        RunStatistics statistics = new RunStatistics();
+        for (int row = 0; row < waiting.length; row++) {
+            statistics.record(waiting[row], turnaround[row], response[row]);
+        }
+        return statistics;
+    }
+}
+
+// Processes that have arrived and not completed in a run over a whole table, as a
+// bitset so they come out in ascending order without sorting. Arrivals are caught up
+// from the cursor when the rows are asked for, completions are reported as they happen.
+class LiveRows {
+    private final ArrivalCursor arrivals;
+    private final int[] order;
+    private final boolean[] done;
+    private final long[] live;
+    private int size;
+
+    // Arrival order position up to which rows have been added
+    private int synced;
+
+    // Over a cursor that has polled its rows so far, of which the given ones are live
+    LiveRows(ArrivalCursor arrivals, int[] rows) {
+        this.arrivals = arrivals;
+        this.order = arrivals.table.arrivalOrder();
+        int n = arrivals.table.size;
+        done = new boolean[n];
+        live = new long[(n + 63) >>> 6];
+
+        synced = arrivals.consumed();
+        for (int row : rows) add(row);
+    }
+
+    void completed(int row) {
+        done[row] = true;
+        long bit = 1L << row;
+        if ((live[row >>> 6] & bit) != 0) {
+            live[row >>> 6] &= ~bit;
+            size--;
+        }
+    }
+
+    // Live rows in ascending order
+    int[] sorted() {
+        sync();
+        int[] rows = new int[size];
+        int n = 0;
+        for (int w = 0; w < live.length; w++) {
+            for (long bits = live[w]; bits != 0; bits &= bits - 1) {
+                rows[n++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return rows;
+    }
+
+    // Hash of the live rows and their remaining times. Two runs with different
+    // fingerprints are in different states; equal ones are worth comparing.
+    long fingerprint(RunState s) {
+        sync();
+        long h = size;
+        for (int w = 0; w < live.length; w++) {
+            for (long bits = live[w]; bits != 0; bits &= bits - 1) {
+                int row = (w << 6) + Long.numberOfTrailingZeros(bits);
+                long x = ((long) row << 32 | s.remaining[row]) * 0x9E3779B97F4A7C15L;
+                h += x ^ (x >>> 29);
+            }
+        }
+        return h;
+    }
+
+    private void sync() {
+        int consumed = arrivals.consumed();
+        for (; synced < consumed; synced++) {
+            if (!done[order[synced]]) add(order[synced]);
+        }
+    }
+
+    private void add(int row) {
+        live[row >>> 6] |= 1L << row;
+        size++;
+    }
+}
+
+// The baseline at the top of the engine's loop, as a partial snapshot: per-row state of
+// the processes in the system then, the rest of the run state and the engine's own
+class WhatIfSnapshot {
+    final int time;
+    final int consumed;
+    final long fingerprint;
+    final byte[] state;
+
+    WhatIfSnapshot(int time, int consumed, long fingerprint, byte[] state) {
+        this.time = time;
+        this.consumed = consumed;
+        this.fingerprint = fingerprint;
+        this.state = state;
+    }
+}
+
+// Partial snapshot of a run as the engine hands it over, taken the same way for the
+// baseline and for a replay so equal states give equal bytes
+final class WhatIfState {
+
+    static byte[] capture(ArrivalCursor arrivals, LiveRows live, Consumer<SnapshotWriter> engineState) {
+        SnapshotWriter out = SnapshotWriter.partial(arrivals.table.size, live.sorted());
+        arrivals.state.save(out);
+        engineState.accept(out);
+        return out.toBytes();
+    }
+}
+
+// Runs an engine over a workload once, keeping the outcome of every process and a
+// snapshot at the first loop top after every spacing arrivals. There are at most
+// MAX_SNAPSHOTS of them. A snapshot grows with the number of processes in the system,
+// so when a long queue builds up the spacing grows to keep them within about
+// MAX_SNAPSHOT_BYTES over the whole run; past that every other one is dropped and the
+// spacing doubled. An engine that cannot resume keeps no snapshots and
+// every question about it is a full run.
+class WhatIfBaseline implements RunSnapshots, RunObserver {
+
+    static final int MAX_SNAPSHOTS = 1024;
+    static final long MAX_SNAPSHOT_BYTES = 64L << 20;
+
+    final String engine;
+    final Workload workload;
+    final SchedulerConfig config;
+    final ProcessOutcomes outcomes;
+    final List<WhatIfSnapshot> snapshots = new ArrayList<>();
+    final boolean resumes;
+
+    RunStatistics statistics;
+    long elapsedNanos;
+    long snapshotBytes;
+
+    private ArrivalCursor arrivals;
+    private LiveRows live;
+    private int spacing;
+    private int nextAt;
+
+    // First row of each name, for questions naming a process
+    private Map<String, Integer> rows;
+
+    WhatIfBaseline(String engine, Workload workload) {
+        this.engine = engine;
+        this.workload = workload;
+        this.config = summaryConfig(workload.config);
+        this.outcomes = new ProcessOutcomes(workload.table.size);
+        this.resumes = SchedulerRegistry.create(engine).checkpoints();
+        this.spacing = Math.max(1, (workload.table.size + MAX_SNAPSHOTS - 1) / MAX_SNAPSHOTS);
+    }
+
+    // The questions only need each process's outcome
+    static SchedulerConfig summaryConfig(SchedulerConfig base) {
+        SchedulerConfig config = new SchedulerConfig(base.contextSwitch, base.rrQuantum, base.agingInterval);
+        config.processResults = false;
+        return config;
+    }
+
+    static WhatIfBaseline record(String engine, Workload workload) {
+        WhatIfBaseline baseline = new WhatIfBaseline(engine, workload);
+        baseline.run();
+        return baseline;
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        arrivals = ArrivalCursor.over(workload.table);
+        live = new LiveRows(arrivals, new int[0]);
+        arrivals.state.observer = this;
+        if (resumes) arrivals.state.snapshots = this;
+
+        SchedulerRegistry.create(engine).run(arrivals, config, WhatIfReplay.NO_TIMELINE);
+
+        statistics = outcomes.statistics();
+        arrivals = null;
+        live = null;
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+    public void completed(int row, int time, int waitingTime) {
+        outcomes.record(arrivals.state, row, time, waitingTime);
+        live.completed(row);
+    }
+
+    public boolean due(int time) {
+        return arrivals.consumed() >= nextAt;
+    }
+
+    public void save(int time, Consumer<SnapshotWriter> engineState) {
+        int consumed = arrivals.consumed();
+        byte[] state = WhatIfState.capture(arrivals, live, engineState);
+        snapshots.add(new WhatIfSnapshot(time, consumed, live.fingerprint(arrivals.state), state));
+        snapshotBytes += state.length;
+
+        long fit = (long) workload.table.size * state.length / MAX_SNAPSHOT_BYTES;
+        spacing = (int) Math.max(spacing, Math.min(fit, workload.table.size));
+        if (snapshotBytes > MAX_SNAPSHOT_BYTES && snapshots.size() > 1) thin();
+        nextAt = consumed + spacing;
+    }
+
+    private void thin() {
+        List<WhatIfSnapshot> kept = new ArrayList<>();
+        snapshotBytes = 0;
+        for (int i = 0; i < snapshots.size(); i += 2) {
+            kept.add(snapshots.get(i));
+            snapshotBytes += snapshots.get(i).state.length;
+        }
+        snapshots.clear();
+        snapshots.addAll(kept);
+        spacing *= 2;
+    }
+
+    // The last snapshot taken before the given time, or null if there is none
+    WhatIfSnapshot before(int time) {
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            if (snapshots.get(i).time < time) return snapshots.get(i);
+        }
+        return null;
+    }
+
+    synchronized Map<String, Integer> rowsByName() {
+        if (rows == null) {
+            ProcessTable t = workload.table;
+            rows = new HashMap<>();
+            for (int row = 0; row < t.size; row++) rows.putIfAbsent(t.name(row), row);
+        }
+        return rows;
+    }
+}
+
+// One question against a baseline: replays the edited workload from the last snapshot
+// that holds for it, watching for the baseline's later snapshots. Once every edited
+// process has arrived in both runs and completed in the replay, a loop top with the
+// same time, arrivals and state as a baseline snapshot means the rest of the run is the
+// baseline's, and the replay stops there.
+class WhatIfReplay implements RunSnapshots, RunObserver {
+
+    static final TimelineSink NO_TIMELINE = (row, start, end, reason) -> { };
+
+    final WhatIfBaseline baseline;
+    final List<ProcessEdit> edits;
+    final ProcessTable table;
+
+    // Filled in by run
+    ProcessOutcomes outcomes;
+    WhatIfSnapshot start;
+    WhatIfSnapshot rejoined;
+    long elapsedNanos;
+
+    // Rows completed by the replay
+    final IntList replayed = new IntList(16);
+
+    private ArrivalCursor arrivals;
+    private LiveRows live;
+
+    // Edited rows, those still to complete, and the arrivals both runs must have
+    // polled before the baseline can be rejoined
+    private final int[] editedRows;
+    private int editsPending;
+    private int rejoinConsumed;
+
+    // Next baseline snapshot to compare with, and how many to pass over after the next
+    // state that matches the fingerprint but not the snapshot. A run that has left the
+    // baseline's path in a way the fingerprint misses (the order of an RR queue, say)
+    // tends to stay off it, so the comparisons back off rather than run at every one.
+    private int next;
+    private int backoff = 1;
+
+    WhatIfReplay(WhatIfBaseline baseline, List<ProcessEdit> edits) {
+        this.baseline = baseline;
+        this.edits = edits;
+        this.table = baseline.workload.table.withEdits(edits);
+        this.editedRows = edits.stream().mapToInt(e -> e.row).distinct().toArray();
+    }
+
+    ProcessOutcomes run() {
+        long startNanos = System.nanoTime();
+        ProcessTable base = baseline.workload.table;
+
+        int earliest = Integer.MAX_VALUE;
+        for (int row : editedRows) {
+            earliest = Math.min(earliest, Math.min(base.arrival[row], table.arrival[row]));
+            rejoinConsumed = Math.max(rejoinConsumed,
+                    Math.max(base.arrivalPosition(row), table.arrivalPosition(row)) + 1);
+        }
+        editsPending = editedRows.length;
+        outcomes = baseline.outcomes.copy();
+
+        Scheduler engine = SchedulerRegistry.create(baseline.engine);
+        arrivals = ArrivalCursor.over(table);
+        arrivals.state.observer = this;
+        if (baseline.resumes) arrivals.state.snapshots = this;
+
+        start = baseline.before(earliest);
+        try {
+            if (start == null) {
+                live = new LiveRows(arrivals, new int[0]);
+                engine.run(arrivals, baseline.config, NO_TIMELINE);
+            } else {
+                arrivals.skip(start.consumed);
+                SnapshotReader in = SnapshotReader.partial(start.state);
+                live = new LiveRows(arrivals, in.rows());
+                arrivals.state.restore(in);
+                engine.resume(arrivals, baseline.config, NO_TIMELINE, in);
+            }
+        } catch (CancellationException e) {
+            // Back on the baseline's path, see save
+        }
+
+        arrivals = null;
+        live = null;
+        elapsedNanos = System.nanoTime() - startNanos;
+        return outcomes;
+    }
+
+    public void completed(int row, int time, int waitingTime) {
+        outcomes.record(arrivals.state, row, time, waitingTime);
+        replayed.add(row);
+        live.completed(row);
+        for (int edited : editedRows) {
+            if (edited == row) editsPending--;
+        }
+    }
+
+    // At the time and arrivals of the next baseline snapshot, with the same fingerprint
+    public boolean due(int time) {
+        if (editsPending > 0) return false;
+
+        List<WhatIfSnapshot> snapshots = baseline.snapshots;
+        int consumed = arrivals.consumed();
+        while (next < snapshots.size()
+                && (snapshots.get(next).consumed < Math.max(consumed, rejoinConsumed)
+                    || snapshots.get(next).time < time)) {
+            next++;
+        }
+        if (next >= snapshots.size() || snapshots.get(next).consumed != consumed
+                || snapshots.get(next).time != time) {
+            return false;
+        }
+
+        if (live.fingerprint(arrivals.state) != snapshots.get(next).fingerprint) {
+            next++;
+            return false;
+        }
+        return true;
+    }
+
+    public void save(int time, Consumer<SnapshotWriter> engineState) {
+        WhatIfSnapshot candidate = baseline.snapshots.get(next++);
+        if (Arrays.equals(candidate.state, WhatIfState.capture(arrivals, live, engineState))) {
+            rejoined = candidate;
+            throw new CancellationException();
+        }
+        next += backoff - 1;
+        backoff *= 2;
+    }
+
+    // Every process's outcome from a run of the whole edited workload, which the
+    // replay must match
+    ProcessOutcomes fullRun() {
+        ProcessOutcomes full = new ProcessOutcomes(table.size);
+        ArrivalCursor cursor = ArrivalCursor.over(table);
+        cursor.state.observer = (row, time, waitingTime) -> full.record(cursor.state, row, time, waitingTime);
+        SchedulerRegistry.create(baseline.engine).run(cursor, baseline.config, NO_TIMELINE);
+        return full;
+    }
+
+    // Rows whose outcome changed, largest change in turnaround first
+    List<Integer> changed() {
+        ProcessOutcomes before = baseline.outcomes;
+        List<Integer> rows = new ArrayList<>();
+        for (int i = 0; i < replayed.size(); i++) {
+            int row = replayed.get(i);
+            if (outcomes.differs(before, row)) rows.add(row);
+        }
+        rows.sort((a, b) -> {
+            int da = Math.abs(outcomes.turnaround[a] - before.turnaround[a]);
+            int db = Math.abs(outcomes.turnaround[b] - before.turnaround[b]);
+            return da != db ? Integer.compare(db, da) : Integer.compare(a, b);
+        });
+        return rows;
+    }
+
+    void print(PrintStream out, int maxRows) {
+        ProcessTable base = baseline.workload.table;
+        StringBuilder question = new StringBuilder();
+        for (ProcessEdit e : edits) {
+            if (question.length() > 0) question.append("; ");
+            question.append(e.describe(base));
+        }
+        out.println("What if " + question + ":");
+
+        out.println(String.format(Locale.ROOT, "  Replayed %d of %d processes %s, %s (%.2f ms)",
+                replayed.size(), base.size,
+                start == null ? "from the start" : "from t=" + start.time,
+                rejoined == null ? "to the end" : "back on the baseline at t=" + rejoined.time,
+                elapsedNanos / 1e6));
+
+        RunStatistics before = baseline.statistics;
+        RunStatistics after = outcomes.statistics();
+        out.println(String.format(Locale.ROOT, "  %-15s | %12s | %12s | %10s", "", "baseline", "what-if", "delta"));
+        printMean(out, "Avg Waiting", before.waiting, after.waiting);
+        printMean(out, "Avg Turnaround", before.turnaround, after.turnaround);
+        printMean(out, "Avg Response", before.response, after.response);
+        printP99(out, "p99 Waiting", before.waiting, after.waiting);
+        printP99(out, "p99 Turnaround", before.turnaround, after.turnaround);
+        printP99(out, "p99 Response", before.response, after.response);
+
+        List<Integer> changed = changed();
+        out.println("  " + changed.size() + " process" + (changed.size() == 1 ? "" : "es") + " changed"
+                + (changed.size() > maxRows ? ", the " + maxRows + " largest changes in turnaround:" : ":"));
+        for (int row : changed.subList(0, Math.min(maxRows, changed.size()))) {
+            ProcessOutcomes b = baseline.outcomes;
+            out.println(String.format(Locale.ROOT,
+                    "    %-12s | waiting %d -> %d (%+d) | turnaround %d -> %d (%+d) | response %d -> %d (%+d)",
+                    base.name(row),
+                    b.waiting[row], outcomes.waiting[row], outcomes.waiting[row] - b.waiting[row],
+                    b.turnaround[row], outcomes.turnaround[row], outcomes.turnaround[row] - b.turnaround[row],
+                    b.response[row], outcomes.response[row], outcomes.response[row] - b.response[row]));
+        }
+    }
+
+    private static void printMean(PrintStream out, String label, LatencyHistogram before, LatencyHistogram after) {
+        out.println(String.format(Locale.ROOT, "  %-15s | %12.2f | %12.2f | %+10.2f",
+                label, before.mean(), after.mean(), after.mean() - before.mean()));
+    }
+
+    private static void printP99(PrintStream out, String label, LatencyHistogram before, LatencyHistogram after) {
+        int b = before.percentile(99), a = after.percentile(99);
+        out.println(String.format(Locale.ROOT, "  %-15s | %12d | %12d | %+10d", label, b, a, a - b));
+    }
+}
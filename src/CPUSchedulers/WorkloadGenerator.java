@@ -0,0 +1,218 @@
+package CPUSchedulers;
+
+import java.util.*;
+
+// ================================
+// Synthetic workloads
+// ================================
+
+// Distribution of an int process attribute, parsed from a spec:
+//   const:v                  always v
+//   uniform:lo:hi            lo to hi inclusive, evenly
+//   exp:mean                 exponential
+//   pareto:alpha:min[:max]   heavy-tailed, at least min, capped at max (10000 * min by default)
+//   bimodal:short:long:p     a long job with probability p, otherwise a short one, each
+//                            uniform over half to one and a half times its mean
+interface IntDistribution {
+
+    int sample(Random random);
+
+    static IntDistribution parse(String spec) {
+        String[] f = spec.split(":");
+        try {
+            switch (f[0]) {
+                case "const": {
+                    int v = Integer.parseInt(f[1]);
+                    return random -> v;
+                }
+                case "uniform": {
+                    int lo = Integer.parseInt(f[1]), hi = Integer.parseInt(f[2]);
+                    if (hi < lo) break;
+                    return random -> lo + (int) (random.nextDouble() * (hi - lo + 1.0));
+                }
+                case "exp": {
+                    double mean = Double.parseDouble(f[1]);
+                    return random -> round(-mean * StrictMath.log(1.0 - random.nextDouble()));
+                }
+                case "pareto": {
+                    double alpha = Double.parseDouble(f[1]), min = Double.parseDouble(f[2]);
+                    double max = f.length > 3 ? Double.parseDouble(f[3]) : min * 10000;
+                    return random -> round(Math.min(max, min / StrictMath.pow(1.0 - random.nextDouble(), 1.0 / alpha)));
+                }
+                case "bimodal": {
+                    double shortMean = Double.parseDouble(f[1]), longMean = Double.parseDouble(f[2]);
+                    double p = Double.parseDouble(f[3]);
+                    return random -> {
+                        double mean = random.nextDouble() < p ? longMean : shortMean;
+                        return round(mean * (0.5 + random.nextDouble()));
+                    };
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Bad distribution: " + spec
+                + " (expected const:v, uniform:lo:hi, exp:mean, pareto:alpha:min[:max] or bimodal:short:long:p)");
+    }
+
+    private static int round(double v) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.round(v));
+    }
+}
+
+// Arrival times in non-decreasing order, parsed from a spec:
+//   poisson:gap                          exponential gaps with the given mean
+//   mmpp:calmGap:burstGap:calm:burst     two-state Markov-modulated Poisson: mean gaps
+//                                        in the calm and bursty state, which last for
+//                                        exponentially distributed spans of the given means
+//   periodic:period[:jitter]             one arrival per period, each delayed by up to
+//                                        jitter (kept below the period so order holds)
+// A parsed process is stateful; parse the spec again for another workload.
+interface ArrivalProcess {
+
+    // Time of the next arrival
+    double next(Random random);
+
+    static ArrivalProcess parse(String spec) {
+        String[] f = spec.split(":");
+        try {
+            switch (f[0]) {
+                case "poisson": {
+                    double gap = Double.parseDouble(f[1]);
+                    double[] time = {0};
+                    return random -> {
+                        double t = time[0];
+                        time[0] += exponential(random, gap);
+                        return t;
+                    };
+                }
+                case "mmpp":
+                    return new ModulatedPoisson(Double.parseDouble(f[1]), Double.parseDouble(f[2]),
+                            Double.parseDouble(f[3]), Double.parseDouble(f[4]));
+                case "periodic": {
+                    double period = Double.parseDouble(f[1]);
+                    double jitter = f.length > 2 ? Math.min(Double.parseDouble(f[2]), period - 1) : 0;
+                    long[] k = {0};
+                    return random -> k[0]++ * period + random.nextDouble() * Math.max(0, jitter);
+                }
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            // Reported below
+        }
+        throw new IllegalArgumentException("Bad arrival process: " + spec
+                + " (expected poisson:gap, mmpp:calmGap:burstGap:calm:burst or periodic:period[:jitter])");
+    }
+
+    static double exponential(Random random, double mean) {
+        return -mean * StrictMath.log(1.0 - random.nextDouble());
+    }
+}
+
+class ModulatedPoisson implements ArrivalProcess {
+    private final double[] gap;
+    private final double[] span;
+
+    private int state;
+    private double time;
+    private double stateEnd = Double.NaN;
+
+    ModulatedPoisson(double calmGap, double burstGap, double calmSpan, double burstSpan) {
+        gap = new double[]{calmGap, burstGap};
+        span = new double[]{calmSpan, burstSpan};
+    }
+
+    public double next(Random random) {
+        if (Double.isNaN(stateEnd)) stateEnd = ArrivalProcess.exponential(random, span[0]);
+
+        // Gaps are memoryless, so one cut short by a state change is redrawn in the new state
+        double t = time + ArrivalProcess.exponential(random, gap[state]);
+        while (t > stateEnd) {
+            time = stateEnd;
+            state ^= 1;
+            stateEnd = time + ArrivalProcess.exponential(random, span[state]);
+            t = time + ArrivalProcess.exponential(random, gap[state]);
+        }
+        time = t;
+        return t;
+    }
+}
+
+// What to generate. The defaults give about 90% CPU load with the parameters of the
+// bundled test cases.
+class WorkloadSpec {
+    int count;
+    long seed = 1;
+
+    String arrivals = "poisson:11";
+    String bursts = "exp:10";
+    String priority = "uniform:1:10";
+    String quantum = "uniform:2:8";
+
+    SchedulerConfig config = new SchedulerConfig(1, 2, 5);
+
+    WorkloadSpec(int count) {
+        this.count = count;
+    }
+
+    WorkloadGenerator generator() {
+        return new WorkloadGenerator(this);
+    }
+
+    public String toString() {
+        return "Synthetic: " + count + " processes, seed " + seed + ", arrivals " + arrivals + ", bursts " + bursts
+                + ", priority " + priority + ", quantum " + quantum;
+    }
+}
+
+// Generates the processes of a spec one at a time, in arrival order, so a workload of
+// any size can be streamed to a file or straight into an engine. Every attribute draws
+// from its own java.util.Random seeded from the spec's seed and uses StrictMath, so the
+// same spec gives the same processes on every run and JVM, and changing one attribute's
+// distribution leaves the others unchanged.
+class WorkloadGenerator implements ProcessSource {
+
+    final SchedulerConfig config;
+
+    private final int count;
+    private final ArrivalProcess arrivals;
+    private final IntDistribution bursts, priority, quantum;
+    private final Random arrivalRandom, burstRandom, priorityRandom, quantumRandom;
+
+    private int generated;
+
+    WorkloadGenerator(WorkloadSpec spec) {
+        config = spec.config;
+        count = spec.count;
+
+        arrivals = ArrivalProcess.parse(spec.arrivals);
+        bursts = IntDistribution.parse(spec.bursts);
+        priority = IntDistribution.parse(spec.priority);
+        quantum = IntDistribution.parse(spec.quantum);
+
+        arrivalRandom = new Random(mix(spec.seed, 1));
+        burstRandom = new Random(mix(spec.seed, 2));
+        priorityRandom = new Random(mix(spec.seed, 3));
+        quantumRandom = new Random(mix(spec.seed, 4));
+    }
+
+    // Bursts, priorities and quanta are at least 1
+    public Process next() {
+        if (generated == count)
+            return null;
+
+        generated++;
+        return new Process("P" + generated,
+                (int) Math.min(Integer.MAX_VALUE, arrivals.next(arrivalRandom)),
+                Math.max(1, bursts.sample(burstRandom)),
+                Math.max(1, priority.sample(priorityRandom)),
+                Math.max(1, quantum.sample(quantumRandom)));
+    }
+
+    // SplitMix64 finaliser, Randoms seeded with neighbouring values start out correlated
+    private static long mix(long seed, int stream) {
+        long z = seed + stream * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,193 @@
+package CPUSchedulers;
+
+import java.io.*;
+import java.nio.file.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+// ================================
+// Streaming workload ingestion
+// ================================
+
+// Streams the input section of a test case file (either schema) with Gson's JsonReader.
+// The scheduler parameters are read when the file is opened; processes are then parsed
+// one at a time as the engine pulls them, so the file contents and the parsed JSON are
+// never held in memory. Only the parse is streamed: the ArrivalCursor fed by the reader
+// appends every process to its table and run state, which grow with the process count
+// for the whole run.
+//
+// The parameters are expected before the processes, as WorkloadWriter and the bundled
+// test cases list them. Parameters after the processes cost a second pass over the
+// file, which is only made if the caller needs them. The processes are expected in
+// arrival order; sorted tells whether those read so far were.
+class WorkloadReader implements ProcessSource, Closeable {
+
+    private final JsonReader reader;
+    private boolean inProcesses;
+
+    final SchedulerConfig config = new SchedulerConfig(0, 0, 0);
+
+    boolean sorted = true;
+    private int lastArrival = Integer.MIN_VALUE;
+
+    WorkloadReader(Path path) throws IOException {
+        this(path, true);
+    }
+
+    // Without parameters, those missing before the processes are left at 0 rather
+    // than looked for after them, for engines that read none (AG)
+    WorkloadReader(Path path, boolean parameters) throws IOException {
+        reader = new JsonReader(Files.newBufferedReader(path));
+
+        boolean[] seen = new boolean[3];
+        inProcesses = seekProcesses(reader, seen);
+
+        // Parameters listed after the processes need a second pass that skips over them
+        if (parameters && inProcesses && !(seen[0] && seen[1] && seen[2])) {
+            try (JsonReader scan = new JsonReader(Files.newBufferedReader(path))) {
+                seekProcesses(scan, seen);
+                while (scan.hasNext()) scan.skipValue();
+                scan.endArray();
+                readParameters(scan, seen);
+            }
+        }
+    }
+
+    static WorkloadReader open(String path, boolean parameters) throws IOException {
+        return new WorkloadReader(Paths.get(path), parameters);
+    }
+
+    public Process next() throws IOException {
+        if (!inProcesses)
+            return null;
+
+        if (!reader.hasNext()) {
+            reader.endArray();
+            inProcesses = false;
+            return null;
+        }
+
+        String name = null;
+        int arrival = 0, burst = 0, priority = 0, quantum = 0;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "name": name = reader.nextString(); break;
+                case "arrival": arrival = reader.nextInt(); break;
+                case "burst": burst = reader.nextInt(); break;
+                case "priority": priority = reader.nextInt(); break;
+                case "quantum": quantum = reader.nextInt(); break;
+                default: reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (arrival < lastArrival) sorted = false;
+        lastArrival = arrival;
+        return new Process(name, arrival, burst, priority, quantum);
+    }
+
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    // Position the reader at the first element of input.processes, reading the
+    // parameters that come before it. Returns false if there is no process list.
+    private boolean seekProcesses(JsonReader in, boolean[] seen) throws IOException {
+        in.beginObject();
+        while (in.hasNext()) {
+            if (!in.nextName().equals("input") || in.peek() != JsonToken.BEGIN_OBJECT) {
+                in.skipValue();
+                continue;
+            }
+
+            in.beginObject();
+            if (readParameters(in, seen)) {
+                in.beginArray();
+                return true;
+            }
+            return false;
+        }
+        return false;
+    }
+
+    // Read scheduler parameters from the current object until its end or until the
+    // "processes" key, which is left unread. Returns true if it stopped at "processes".
+    private boolean readParameters(JsonReader in, boolean[] seen) throws IOException {
+        while (in.hasNext()) {
+            switch (in.nextName()) {
+                case "contextSwitch": config.contextSwitch = in.nextInt(); seen[0] = true; break;
+                case "rrQuantum": config.rrQuantum = in.nextInt(); seen[1] = true; break;
+                case "agingInterval": config.agingInterval = in.nextInt(); seen[2] = true; break;
+                case "processes": return true;
+                default: in.skipValue();
+            }
+        }
+        return false;
+    }
+}
+
+// Streams a workload to a test case file in the shared input schema, one process at a
+// time. Processes carry both a priority and a quantum, so the file can be read as an
+// SJF / RR / Priority test case or as an AG one.
+class WorkloadWriter implements Closeable {
+
+    private final JsonWriter writer;
+
+    WorkloadWriter(Path path, String name, SchedulerConfig config) throws IOException {
+        writer = new JsonWriter(Files.newBufferedWriter(path));
+
+        writer.beginObject();
+        writer.name("name").value(name);
+        writer.name("input").beginObject();
+        writer.name("contextSwitch").value(config.contextSwitch);
+        writer.name("rrQuantum").value(config.rrQuantum);
+        writer.name("agingInterval").value(config.agingInterval);
+        writer.name("processes").beginArray();
+    }
+
+    void write(Process p) throws IOException {
+        writer.beginObject();
+        writer.name("name").value(p.name);
+        writer.name("arrival").value(p.arrivalTime);
+        writer.name("burst").value(p.burstTime);
+        writer.name("priority").value(p.priority);
+        writer.name("quantum").value(p.quantum);
+        writer.endObject();
+    }
+
+    public void close() throws IOException {
+        try {
+            writer.endArray();
+            writer.endObject();
+            writer.endObject();
+        } finally {
+            writer.close();
+        }
+    }
+
+    // Drain a source into a file, binary if the path ends in .bin, JSON otherwise (the
+    // name is only kept in JSON). Returns the number of processes written.
+    static int write(ProcessSource source, String name, SchedulerConfig config, Path out) throws IOException {
+        int count = 0;
+
+        if (BinaryWorkload.isBinary(out.toString())) {
+            try (BinaryWorkloadWriter writer = new BinaryWorkloadWriter(out, config)) {
+                for (Process p = source.next(); p != null; p = source.next()) {
+                    writer.write(p);
+                    count++;
+                }
+            }
+        } else {
+            try (WorkloadWriter writer = new WorkloadWriter(out, name, config)) {
+                for (Process p = source.next(); p != null; p = source.next()) {
+                    writer.write(p);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}